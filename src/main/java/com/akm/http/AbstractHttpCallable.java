@@ -1,25 +1,45 @@
 package com.akm.http;
 
 import java.io.IOException;
-import java.net.URISyntaxException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.Callable;
-import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
 
 import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.entity.DecompressingEntity;
+import org.apache.hc.client5.http.entity.DeflateInputStream;
+import org.apache.hc.client5.http.entity.InputStreamFactory;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
 import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpStatus;
 import org.apache.hc.core5.http.HttpRequest;
-import org.apache.hc.core5.http.io.entity.EntityUtils;
-import org.apache.hc.core5.http.io.entity.HttpEntities;
-import org.apache.hc.core5.http.message.BasicNameValuePair;
+import org.apache.hc.core5.http.impl.io.HttpRequestExecutor;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
 import org.apache.hc.core5.http.message.StatusLine;
-import org.apache.hc.core5.net.URIBuilder;
+import org.apache.hc.core5.io.Closer;
 import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.Asserts;
 import org.apache.hc.core5.util.TextUtils;
+import org.apache.hc.core5.util.Timeout;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,6 +59,34 @@ abstract class AbstractHttpCallable
   private static final Logger LOGGER = LoggerFactory
       .getLogger(AbstractHttpCallable.class);
 
+  /**
+   * The size of the direct buffer used to write downloads to disk.
+   */
+  private static final int TRANSFER_BUFFER_SIZE = 256 * 1024;
+
+  /**
+   * The content encodings advertised when compression is enabled.
+   */
+  private static final String ACCEPT_ENCODING = "gzip, deflate";
+
+  /**
+   * The content type of a body of url-encoded parameters.
+   */
+  private static final ContentType FORM_CONTENT_TYPE = ContentType.APPLICATION_FORM_URLENCODED
+      .withCharset(StandardCharsets.UTF_8);
+
+  /**
+   * The configuration of a request sent with an <code>Expect: 100-continue</code> header.
+   */
+  private static final RequestConfig EXPECT_CONTINUE = RequestConfig.custom()
+      .setExpectContinueEnabled(true)
+      .build();
+
+  /**
+   * The size of the input buffer of the gzip decoder.
+   */
+  private static final int DECODER_BUFFER_SIZE = 8192;
+
   /**
    * The base request url.
    */
@@ -54,69 +102,654 @@ abstract class AbstractHttpCallable
    */
   private final Map<String, String> parameters;
 
-  private final String body;
+  /**
+   * The request body, if any.
+   */
+  private RequestBody body;
 
   /**
    * The HTTP method name.
    */
   private final String method;
 
+  /**
+   * The request currently being executed, if any.
+   */
+  private volatile HttpUriRequestBase request;
+
+  /**
+   * Whether this request has been cancelled.
+   */
+  private volatile boolean cancelled;
+
+  /**
+   * The configuration of the service executing this request, set by the service before the request
+   * is executed.
+   */
+  private HttpServiceConfig config;
+
+  /**
+   * The metrics of the service executing this request, set by the service before the request is
+   * executed.
+   */
+  private HttpServiceMetrics metrics;
+
+  /**
+   * The connect and response timeout of this request, or null for the client defaults.
+   */
+  private Timeout timeout;
+
   public AbstractHttpCallable(final String url,
       final Map<String, String> headers,
       final Map<String, String> parameters, final String body, final String method) {
     this.url = Args.notBlank(url, "url");
     this.headers = headers;
     this.parameters = parameters;
-    this.body = body;
+    this.body = TextUtils.isBlank(body) ? null : RequestBody.of(body);
     this.method = Args.notBlank(method, "method");
   }
 
   @Override
   public HttpResponse call() throws Exception {
-    final CloseableHttpClient client = HttpClients.createDefault();
-    CloseableHttpResponse resp = null;
-    HttpResponse response;
-    String data = null;
+    return exchange((resp, statusLine) -> {
+      final HttpEntity entity = resp.getEntity();
+      ResponseBody body = null;
+      String contentType = null;
+
+      if (entity != null) {
+        body = ResponseBody.read(entity.getContent(), entity.getContentLength(), config);
+        contentType = entity.getContentType();
+      }
+
+      return new HttpResponse(resp.getHeaders(), statusLine, body, contentType);
+    });
+  }
+
+  /**
+   * Executes the request and converts the response body with the given handler, which reads it
+   * directly from the connection. Any part of the body left unread by the handler is discarded.
+   *
+   * @param handler the body handler
+   * @param <T>     the type of the handled body
+   *
+   * @return the HttpBodyResponse
+   *
+   * @throws IOException if there were any issues executing the request or handling the body
+   */
+  <T> HttpBodyResponse<T> call(final BodyHandler<T> handler) throws IOException {
+    return exchange((resp, statusLine) -> {
+      final HttpBodyResponse<T> response = new HttpBodyResponse<>(resp.getHeaders(), statusLine);
+      final HttpEntity entity = resp.getEntity();
+      InputStream body = InputStream.nullInputStream();
+
+      if (entity != null) {
+        final long maxSize = config.getMaxBodySize();
+        ResponseBody.checkSize(entity.getContentLength(), maxSize);
+        body = maxSize < Long.MAX_VALUE
+            ? new LimitedInputStream(entity.getContent(), maxSize) : entity.getContent();
+      }
+
+      response.setBody(handler.handle(response, body));
+      return response;
+    });
+  }
+
+  /**
+   * Executes the request and returns the response without reading its body. The connection is
+   * kept open until the returned response is closed.
+   *
+   * @return the HttpStreamResponse
+   *
+   * @throws IOException if there were any issues executing the request
+   */
+  HttpStreamResponse stream() throws IOException {
+    final CloseableHttpClient client = createClient();
+    CloseableHttpResponse response = null;
 
-    // send the request
     try {
       LOGGER.info("attempting to execute http {} request to {}", method,
           url);
 
-      resp = execute(client);
+      final CloseableHttpResponse resp = execute(client);
+      response = resp;
       final StatusLine statusLine = new StatusLine(resp);
 
       LOGGER.info("execution complete with status {}", statusLine);
 
-      // handle the response
+      final HttpEntity entity = resp.getEntity();
+      return new HttpStreamResponse(resp.getHeaders(), statusLine,
+          entity != null ? entity.getContent() : null, () -> {
+            // closing the response alone would drain the rest of the body, so shut down the
+            // connection first; closing the response then has nothing left to do
+            cancel();
+            Closer.closeQuietly(resp);
+            client.close();
+          });
+    } catch (final IOException e) {
+      if (cancelled) {
+        LOGGER.info("http {} request to {} cancelled", method, url);
+      } else {
+        LOGGER.error("error sending http request", e);
+      }
+      Closer.closeQuietly(response);
+      client.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Executes the request and writes the response body to the given file. The body is transferred
+   * through a direct buffer to a temporary file next to the target and never held on the heap; the
+   * temporary file replaces the target once the whole body has been received. If the transfer
+   * fails, the connection is aborted and the temporary file is deleted, leaving the target as it
+   * was. A response without a 2xx status is not written at all.
+   *
+   * @param target the file to write the response body to
+   *
+   * @return the HttpDownloadResponse
+   *
+   * @throws IOException if there were any issues executing the request or writing the file
+   */
+  HttpDownloadResponse download(final Path target) throws IOException {
+    final long start = System.nanoTime();
+
+    return exchange((resp, statusLine) -> {
+      final int status = statusLine.getStatusCode();
+      if (status < HttpStatus.SC_SUCCESS || status >= HttpStatus.SC_REDIRECTION) {
+        LOGGER.info("not downloading to {}: status {}", target, statusLine);
+        return new HttpDownloadResponse(resp.getHeaders(), statusLine, target, 0,
+            System.nanoTime() - start);
+      }
+
+      final HttpEntity entity = resp.getEntity();
+      final Path dir = target.toAbsolutePath().getParent();
+      final Path temp = Files.createTempFile(dir, target.getFileName().toString(), ".tmp");
+      long size = 0;
+
       try {
-        final HttpEntity entity = resp.getEntity();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+          if (entity != null) {
+            ResponseBody.checkSize(entity.getContentLength(), config.getMaxBodySize());
+            size = transfer(entity.getContent(), channel, 0);
+          }
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+      } catch (final IOException e) {
+        Files.deleteIfExists(temp);
+        throw e;
+      }
+
+      LOGGER.info("downloaded {} bytes to {}", size, target);
+      return new HttpDownloadResponse(resp.getHeaders(), statusLine, target, size,
+          System.nanoTime() - start);
+    });
+  }
+
+  /**
+   * Executes the request, expected to carry <code>Range</code> and <code>If-Range</code> headers
+   * for the given byte range, and writes the response body at its offset in the given channel. If
+   * the server answers with the whole content, because it changed since the range was planned,
+   * nothing is written and the response is returned as is, so that the caller can start over.
+   * Otherwise the request fails unless the server answers with partial content whose
+   * <code>Content-Range</code> is exactly the requested range, and of exactly its length.
+   *
+   * @param target  the file the channel writes to
+   * @param channel the channel to write the range to
+   * @param offset  the offset of the first byte of the range
+   * @param length  the length of the range
+   *
+   * @return the HttpDownloadResponse, reporting the bytes of this range
+   *
+   * @throws IOException if there were any issues executing the request or writing the range
+   */
+  HttpDownloadResponse downloadRange(final Path target, final FileChannel channel,
+      final long offset, final long length) throws IOException {
+    final long start = System.nanoTime();
+
+    return exchange((resp, statusLine) -> {
+      if (statusLine.getStatusCode() == HttpStatus.SC_OK) {
+        LOGGER.info("range request answered with status {}, content changed", statusLine);
+        return new HttpDownloadResponse(resp.getHeaders(), statusLine, target, 0,
+            System.nanoTime() - start);
+      } else if (statusLine.getStatusCode() != HttpStatus.SC_PARTIAL_CONTENT) {
+        throw new IOException(String.format("range request answered with status %s",
+            statusLine));
+      }
+
+      final String expected = "bytes " + offset + "-" + (offset + length - 1) + "/";
+      final Header range = resp.getFirstHeader(HttpHeaders.CONTENT_RANGE);
+      if (range == null || !range.getValue().trim().startsWith(expected)) {
+        throw new IOException(String.format("unexpected content range %s, expected %s*",
+            range != null ? range.getValue() : null, expected));
+      }
+
+      final HttpEntity entity = resp.getEntity();
+      final long size = entity != null ? transfer(entity.getContent(), channel, offset) : 0;
+
+      if (size != length) {
+        throw new IOException(String.format(
+            "expected %d bytes at offset %d but received %d", length, offset, size));
+      }
+
+      return new HttpDownloadResponse(resp.getHeaders(), statusLine, target, size,
+          System.nanoTime() - start);
+    });
+  }
+
+  /**
+   * Executes the request, expected to carry <code>Range</code> and <code>If-Range</code> headers
+   * if the given offset is positive, and writes the response body to the part file of the given
+   * target. A partial content response starting at the offset is appended to the part file; a full
+   * response replaces it, recording the validators of the new content in a checkpoint first. A
+   * <code>416</code> response whose <code>Content-Range</code> shows that the part file already
+   * holds the whole content, and whose validator, if any, matches the checkpoint, completes the
+   * download without a transfer. Once the body is complete, the part file is moved to the target.
+   * Any other response fails the request. If the transfer fails, the part file and checkpoint are
+   * kept, so that the download can be resumed.
+   *
+   * @param target    the file to write the response body to
+   * @param source    the url identifying the download in the checkpoint
+   * @param offset    the number of bytes already in the part file
+   * @param validator the validator of the checkpoint, or null if the offset is zero
+   *
+   * @return the HttpDownloadResponse
+   *
+   * @throws IOException if there were any issues executing the request or writing the file
+   */
+  HttpDownloadResponse resume(final Path target, final String source, final long offset,
+      final String validator) throws IOException {
+    final long start = System.nanoTime();
+
+    return exchange((resp, statusLine) -> {
+      final int status = statusLine.getStatusCode();
+      final long position;
+
+      if (status == HttpStatus.SC_PARTIAL_CONTENT && offset > 0) {
+        final Header range = resp.getFirstHeader(HttpHeaders.CONTENT_RANGE);
+        if (range == null || !range.getValue().trim().startsWith("bytes " + offset + "-")) {
+          throw new IOException(String.format("unexpected content range %s, expected offset %d",
+              range != null ? range.getValue() : null, offset));
+        }
+        position = offset;
+      } else if (status == HttpStatus.SC_OK) {
+        // a new download, or the content changed since the checkpoint
+        DownloadCheckpoint.of(source, resp).save(target);
+        position = 0;
+      } else if (status == HttpStatus.SC_REQUESTED_RANGE_NOT_SATISFIABLE && offset > 0
+          && isComplete(resp, offset, validator)) {
+        complete(target);
+        LOGGER.info("download of {} to {} was already complete", source, target);
+        return new HttpDownloadResponse(resp.getHeaders(), statusLine, target, 0,
+            System.nanoTime() - start, offset);
+      } else {
+        throw new IOException(String.format("download answered with status %s", statusLine));
+      }
+
+      final Path part = DownloadCheckpoint.partFile(target);
+      final HttpEntity entity = resp.getEntity();
+      long size = 0;
 
+      try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE,
+          StandardOpenOption.WRITE)) {
+        channel.truncate(position);
         if (entity != null) {
-          data = EntityUtils.toString(entity, StandardCharsets.UTF_8);
+          size = transfer(entity.getContent(), channel, position);
         }
+      }
+
+      complete(target);
+      LOGGER.info("downloaded {} bytes to {} from offset {}", size, target, position);
+
+      return new HttpDownloadResponse(resp.getHeaders(), statusLine, target, size,
+          System.nanoTime() - start, position);
+    });
+  }
+
+  /**
+   * Returns whether the given <code>416</code> response shows that the part file of a download
+   * already holds the whole content: its <code>Content-Range</code> gives the complete length as
+   * the given offset, and its validator, if any, matches the given one.
+   *
+   * @param resp      the response
+   * @param offset    the number of bytes in the part file
+   * @param validator the validator of the checkpoint
+   *
+   * @return <code>true</code> if the download is complete, <code>false</code> otherwise
+   */
+  private static boolean isComplete(final CloseableHttpResponse resp, final long offset,
+      final String validator) {
+    final Header range = resp.getFirstHeader(HttpHeaders.CONTENT_RANGE);
+    final Header etag = resp.getFirstHeader(HttpHeaders.ETAG);
+    final Header lastModified = resp.getFirstHeader(HttpHeaders.LAST_MODIFIED);
+    final String current = DownloadCheckpoint.getValidator(etag != null ? etag.getValue() : null,
+        lastModified != null ? lastModified.getValue() : null);
+
+    return range != null && range.getValue().trim().equals("bytes */" + offset)
+        && (current == null || current.equals(validator));
+  }
+
+  /**
+   * Moves the part file of the given target into place and deletes its checkpoint.
+   *
+   * @param target the target file of the download
+   *
+   * @throws IOException if the files could not be moved or deleted
+   */
+  private static void complete(final Path target) throws IOException {
+    Files.move(DownloadCheckpoint.partFile(target), target, StandardCopyOption.REPLACE_EXISTING);
+    Files.deleteIfExists(DownloadCheckpoint.checkpointFile(target));
+  }
+
+  /**
+   * Executes the request and reads the response with the given reader. Once the reader returns or
+   * fails, the connection is shut down rather than drained, as it is never reused; any part of the
+   * body left unread is discarded.
+   *
+   * @param reader the response reader
+   * @param <R>    the type of the result
+   *
+   * @return the result of the reader
+   *
+   * @throws IOException if there were any issues executing the request or reading the response
+   */
+  private <R> R exchange(final ResponseReader<R> reader) throws IOException {
+    final CloseableHttpClient client = createClient();
+    CloseableHttpResponse resp = null;
+
+    // send the request
+    try {
+      LOGGER.info("attempting to execute http {} request to {}", method,
+          url);
+
+      resp = execute(client);
+      final StatusLine statusLine = new StatusLine(resp);
+
+      LOGGER.info("execution complete with status {}", statusLine);
 
-        EntityUtils.consume(entity);
-        response = new HttpResponse(resp.getHeaders(), statusLine,
-            data);
+      // handle the response
+      try {
+        return reader.read(resp, statusLine);
       } catch (final IOException e) {
-        LOGGER.error("error handling http response", e);
+        if (!cancelled) {
+          LOGGER.error("error handling http response", e);
+        }
         throw e;
       }
     } catch (final IOException e) {
-      LOGGER.error("error sending http request", e);
+      if (cancelled) {
+        LOGGER.info("http {} request to {} cancelled", method, url);
+      } else {
+        LOGGER.error("error sending http request", e);
+      }
       throw e;
     } finally {
       if (resp != null) {
-        resp.close();
+        abort();
+        Closer.closeQuietly(resp);
       }
 
       client.close();
     }
+  }
+
+  /**
+   * Copies the given stream to the given channel from the given position, filling a pooled direct
+   * buffer before each write.
+   *
+   * @param in       the stream to read
+   * @param channel  the channel to write
+   * @param position the position of the channel to write the first byte at
+   *
+   * @return the number of bytes copied
+   *
+   * @throws IOException if the stream could not be read, the channel could not be written, or the
+   *                     maximum body size was exceeded
+   */
+  private long transfer(final InputStream in, final FileChannel channel, final long position)
+      throws IOException {
+    final ReadableByteChannel source = Channels.newChannel(in);
+    final ByteBuffer buffer = BufferPool.DIRECT.acquire(TRANSFER_BUFFER_SIZE).clear();
+    final long maxSize = config.getMaxBodySize();
+    long size = 0;
+    long written = 0;
+    int read = 0;
+
+    try {
+      while (read != -1) {
+        try {
+          read = source.read(buffer);
+        } catch (final IOException e) {
+          // keep what was received, so that a resumed download can continue from there
+          write(buffer, channel, position + written);
+          throw e;
+        }
+
+        if (read > 0) {
+          size += read;
+          ResponseBody.checkSize(size, maxSize);
+        }
+
+        if (read == -1 || !buffer.hasRemaining()) {
+          written += write(buffer, channel, position + written);
+        }
+      }
+    } finally {
+      BufferPool.DIRECT.release(buffer);
+    }
+
+    return size;
+  }
+
+  /**
+   * Writes the content of the given buffer to the given channel at the given position, then clears
+   * the buffer.
+   *
+   * @param buffer   the buffer, in read mode
+   * @param channel  the channel to write
+   * @param position the position of the channel to write the first byte at
+   *
+   * @return the number of bytes written
+   *
+   * @throws IOException if the channel could not be written
+   */
+  private static long write(final ByteBuffer buffer, final FileChannel channel,
+      final long position) throws IOException {
+    long written = 0;
+    buffer.flip();
+
+    while (buffer.hasRemaining()) {
+      written += channel.write(buffer, position + written);
+    }
+
+    buffer.clear();
+    return written;
+  }
+
+  /**
+   * Cancels this request. If the request is in flight, the underlying connection is shut down
+   * immediately, aborting any transfer in progress and causing {@link #call()} to fail. If the
+   * request has not been sent yet, it will be aborted as soon as it is executed.
+   */
+  void cancel() {
+    cancelled = true;
+    abort();
+  }
+
+  /**
+   * Shuts down the connection of the request in flight, if any.
+   */
+  private void abort() {
+    final HttpUriRequestBase current = request;
+
+    if (current != null) {
+      current.cancel();
+    }
+  }
+
+  /**
+   * Returns whether this request has been cancelled.
+   *
+   * @return <code>true</code> if the request was cancelled, <code>false</code> otherwise
+   */
+  boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * Executes the given request using the given client, keeping track of it so that it can be
+   * aborted by {@link #cancel()}.
+   *
+   * @param client  the provided {@link CloseableHttpClient}
+   * @param request the request to execute
+   *
+   * @return the {@link CloseableHttpResponse}
+   *
+   * @throws IOException if there were any issues executing the request
+   */
+  protected CloseableHttpResponse execute(final CloseableHttpClient client,
+      final HttpUriRequestBase request) throws IOException {
+    this.request = request;
+
+    if (cancelled) {
+      request.cancel();
+    }
+
+    if (config.isCompressionEnabled() && !request.containsHeader(HttpHeaders.ACCEPT_ENCODING)) {
+      request.setHeader(HttpHeaders.ACCEPT_ENCODING, ACCEPT_ENCODING);
+    }
+
+    if (timeout != null) {
+      final RequestConfig requestConfig = request.getConfig();
+      request.setConfig((requestConfig == null ? RequestConfig.custom()
+          : RequestConfig.copy(requestConfig))
+          .setConnectTimeout(timeout)
+          .setResponseTimeout(timeout)
+          .build());
+    }
+
+    // decided on the length of the body as given, before it is compressed
+    if (config.getExpectContinueThreshold() >= 0) {
+      expectContinue(request);
+    }
+
+    if (config.getRequestCompression() != null) {
+      compress(request);
+    }
+
+    final CloseableHttpResponse response = client.execute(request);
+
+    if (config.isCompressionEnabled()) {
+      decompress(response);
+    }
 
     return response;
   }
 
+  /**
+   * Enables the <code>Expect: 100-continue</code> handshake for the given request if its body is
+   * above the expect-continue threshold or of unknown length.
+   *
+   * @param request the request
+   */
+  private void expectContinue(final HttpUriRequestBase request) {
+    final HttpEntity entity = request.getEntity();
+
+    if (entity == null) {
+      return;
+    }
+
+    final long length = entity.getContentLength();
+    if (length >= 0 && length < config.getExpectContinueThreshold()) {
+      return;
+    }
+
+    final RequestConfig requestConfig = request.getConfig();
+    request.setConfig(requestConfig == null ? EXPECT_CONTINUE
+        : RequestConfig.copy(requestConfig).setExpectContinueEnabled(true).build());
+  }
+
+  /**
+   * Replaces the entity of the given request with one compressing it as it is sent, unless the
+   * request has no body, its body is below the compression threshold or already encoded.
+   *
+   * @param request the request
+   */
+  private void compress(final HttpUriRequestBase request) {
+    final HttpEntity entity = request.getEntity();
+
+    if (entity == null || entity.getContentEncoding() != null
+        || request.containsHeader(HttpHeaders.CONTENT_ENCODING)) {
+      return;
+    }
+
+    final long length = entity.getContentLength();
+    if (length >= 0 && length < config.getRequestCompressionThreshold()) {
+      return;
+    }
+
+    request.setEntity(new CompressingEntity(entity, config.getRequestCompression(), metrics));
+  }
+
+  /**
+   * Replaces the entity of a gzip or deflate encoded response with one that decompresses the body
+   * as it is read, counting the bytes on both sides of the decoder. As the original headers no
+   * longer describe the body, the content encoding and length headers are removed.
+   *
+   * @param response the response
+   */
+  private void decompress(final CloseableHttpResponse response) {
+    final HttpEntity entity = response.getEntity();
+    final String encoding = entity != null ? entity.getContentEncoding() : null;
+
+    if (encoding == null) {
+      return;
+    }
+
+    final String codec = encoding.trim().toLowerCase(Locale.ROOT);
+    final InputStreamFactory decoder;
+
+    if ("gzip".equals(codec) || "x-gzip".equals(codec)) {
+      decoder = in -> new GZIPInputStream(in, DECODER_BUFFER_SIZE);
+    } else if ("deflate".equals(codec)) {
+      decoder = DeflateInputStream::new;
+    } else {
+      return;
+    }
+
+    metrics.recordCompressedResponse();
+    response.setEntity(new DecompressingEntity(entity, in -> new CountingInputStream(
+        decoder.create(new CountingInputStream(in, metrics::addCompressedResponseBytes)),
+        metrics::addDecompressedResponseBytes)));
+    response.removeHeaders(HttpHeaders.CONTENT_LENGTH);
+    response.removeHeaders(HttpHeaders.CONTENT_ENCODING);
+    response.removeHeaders(HttpHeaders.CONTENT_MD5);
+  }
+
+  /**
+   * Creates the client used to execute this request. Content compression is handled by this class
+   * rather than the client, so that it can be switched off and measured. When the expect-continue
+   * handshake is enabled, the client waits for the server's answer for the configured timeout.
+   *
+   * @return the client
+   *
+   * @throws IllegalStateException if the configuration or metrics of the service are not set
+   */
+  private CloseableHttpClient createClient() {
+    Asserts.notNull(config, "service configuration");
+    Asserts.notNull(metrics, "service metrics");
+
+    final HttpClientBuilder builder = HttpClients.custom()
+        .disableContentCompression();
+
+    if (config.getExpectContinueThreshold() >= 0) {
+      builder.setRequestExecutor(new HttpRequestExecutor(
+          Timeout.ofMilliseconds(Math.max(config.getExpectContinueTimeout().toMillis(), 1)), null,
+          null));
+    }
+
+    return builder.build();
+  }
+
   /**
    * Adds all headers to the given request.
    *
@@ -135,17 +768,13 @@ abstract class AbstractHttpCallable
    */
   protected void addPostParameters(final HttpUriRequestBase request) {
     if (notEmpty(parameters)) {
-      request.setEntity(HttpEntities.createUrlEncoded(
-          parameters.entrySet().parallelStream()
-              .map(e -> new BasicNameValuePair(e.getKey(),
-                  e.getValue()))
-              .collect(Collectors.toList()),
-          StandardCharsets.UTF_8));
+      request.setEntity(new ByteArrayEntity(QueryEncoder.encodeForm(parameters),
+          FORM_CONTENT_TYPE));
     }
 
     // a request body should replace any POST parameters
-    if (!TextUtils.isBlank(body)) {
-      request.setEntity(HttpEntities.create(body, StandardCharsets.UTF_8));
+    if (body != null) {
+      request.setEntity(body.getEntity());
     }
   }
 
@@ -156,16 +785,48 @@ abstract class AbstractHttpCallable
    */
   protected void addRequestParameters(final HttpUriRequestBase request) {
     if (notEmpty(parameters)) {
-      try {
-        final URIBuilder uriBuilder = new URIBuilder(url);
-        parameters.forEach(uriBuilder::setParameter);
-        request.setUri(uriBuilder.build());
-      } catch (final URISyntaxException e) {
-        LOGGER.error("unable to build uri", e);
-      }
+      request.setPath(QueryEncoder.appendQuery(request.getPath(), parameters));
     }
   }
 
+  /**
+   * Sets the configuration of the service executing this request.
+   *
+   * @param config the service configuration
+   */
+  void setConfig(final HttpServiceConfig config) {
+    this.config = Args.notNull(config, "config");
+  }
+
+  /**
+   * Sets the timeout for establishing the connection of this request and for waiting for its
+   * response.
+   *
+   * @param timeout the timeout
+   */
+  void setTimeout(final Duration timeout) {
+    this.timeout = Timeout.ofMilliseconds(Math.max(Args.notNull(timeout, "timeout").toMillis(),
+        1));
+  }
+
+  /**
+   * Sets the body of this request, replacing any body given to the constructor.
+   *
+   * @param body the request body
+   */
+  void setBody(final RequestBody body) {
+    this.body = Args.notNull(body, "body");
+  }
+
+  /**
+   * Sets the metrics of the service executing this request.
+   *
+   * @param metrics the service metrics
+   */
+  void setMetrics(final HttpServiceMetrics metrics) {
+    this.metrics = Args.notNull(metrics, "metrics");
+  }
+
   protected String getUrl() {
     return url;
   }
@@ -178,7 +839,7 @@ abstract class AbstractHttpCallable
     return parameters;
   }
 
-  protected String getBody() {
+  protected RequestBody getBody() {
     return body;
   }
 
@@ -196,4 +857,15 @@ abstract class AbstractHttpCallable
   private <T extends Map<K, V>, K, V> boolean notEmpty(final T map) {
     return map != null && !map.isEmpty();
   }
+
+  /**
+   * Reads an executed response.
+   *
+   * @param <R> the type of the result
+   */
+  @FunctionalInterface
+  private interface ResponseReader<R> {
+
+    R read(CloseableHttpResponse response, StatusLine statusLine) throws IOException;
+  }
 }
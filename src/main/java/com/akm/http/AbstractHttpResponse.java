@@ -0,0 +1,156 @@
+package com.akm.http;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.ProtocolVersion;
+import org.apache.hc.core5.http.message.StatusLine;
+import org.apache.hc.core5.util.Args;
+
+/**
+ * Base class of all HTTP responses.
+ * <p>
+ * The response headers and status line related info are accessible through the object, while the
+ * way the response body is exposed is up to each implementation.
+ *
+ * @author Amir
+ * @see HttpResponse
+ * @see HttpStreamResponse
+ * @since 1.1
+ */
+public abstract class AbstractHttpResponse {
+
+  private final Header[] rawHeaders;
+  private volatile ResponseHeaders headers;
+  private final int statusCode;
+  private final String statusMessage;
+  private final ProtocolVersion protocol;
+
+  AbstractHttpResponse(final Header[] headers, final StatusLine statusLine) {
+    Objects.requireNonNull(headers, "headers");
+    Objects.requireNonNull(statusLine, "status line");
+
+    // headers are only indexed on the first lookup
+    this.rawHeaders = headers;
+
+    // set status line info
+    this.statusCode = statusLine.getStatusCode();
+    this.statusMessage = statusLine.getReasonPhrase();
+    this.protocol = statusLine.getProtocolVersion();
+  }
+
+  /**
+   * Returns a formatted string of the status line including the protocol. status code, and
+   * message.
+   *
+   * @return the status line
+   */
+  public String getStatusLine() {
+    return String.format("%s %s %s", protocol, statusCode, statusMessage);
+  }
+
+  /**
+   * Returns the value of the given header. Header names are case-insensitive. If the header was
+   * received more than once, the last value is returned; use {@link #getHeaders(String)} to read
+   * all of them.
+   *
+   * @param name the name of the header
+   *
+   * @return the value of the header
+   */
+  public String getHeader(final String name) {
+    Args.notBlank(name, "header name");
+
+    return headers().get(name);
+  }
+
+  /**
+   * Returns all values of the given header, in the order they were received. Header names are
+   * case-insensitive.
+   *
+   * @param name the name of the header
+   *
+   * @return the unmodifiable list of values, empty if the header is missing
+   */
+  public List<String> getHeaders(final String name) {
+    Args.notBlank(name, "header name");
+
+    return headers().getAll(name);
+  }
+
+  /**
+   * Returns the map of response headers. The map is unmodifiable, its keys are case-insensitive,
+   * and each header is mapped to its last value; use {@link #getHeaders(String)} to read all the
+   * values of a repeated header.
+   * <p>
+   * Before 1.1 this returned a modifiable, case-sensitive <code>HashMap</code>; callers that
+   * modified it must now copy it first.
+   *
+   * @return the map of headers
+   */
+  public Map<String, String> getHeaders() {
+    return headers().asMap();
+  }
+
+  /**
+   * Returns the index of the response headers, building it on first use.
+   *
+   * @return the response headers
+   */
+  private ResponseHeaders headers() {
+    ResponseHeaders result = headers;
+
+    if (result == null) {
+      result = new ResponseHeaders(rawHeaders);
+      headers = result;
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the headers as received.
+   *
+   * @return the raw headers
+   */
+  Header[] rawHeaders() {
+    return rawHeaders;
+  }
+
+  /**
+   * Returns the status line as received.
+   *
+   * @return the raw status line
+   */
+  StatusLine rawStatusLine() {
+    return new StatusLine(protocol, statusCode, statusMessage);
+  }
+
+  /**
+   * Returns the status code of the response.
+   *
+   * @return the status code
+   */
+  public int getStatusCode() {
+    return statusCode;
+  }
+
+  /**
+   * Returns the status message of the response.
+   *
+   * @return the status message
+   */
+  public String getStatusMessage() {
+    return statusMessage;
+  }
+
+  /**
+   * Returns the protocol used.
+   *
+   * @return the protocol
+   */
+  public String getProtocol() {
+    return protocol.toString();
+  }
+}
@@ -0,0 +1,118 @@
+package com.akm.http;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.function.Consumer;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.util.Args;
+
+/**
+ * Converts a response body into a value of type <code>T</code> as it is read from the connection.
+ * <p>
+ * A handler consumes the body stream directly, so the body never needs to be buffered or decoded
+ * to an intermediate string. For example, a JSON body can be fed straight into a streaming parser:
+ *
+ * <pre>
+ * HttpBodyResponse&lt;Item[]&gt; resp = http.get(url, headers, parameters,
+ *     (head, body) -&gt; mapper.readValue(body, Item[].class));
+ * </pre>
+ * <p>
+ * The stream must not be used after the handler returns; any part of the body left unread is
+ * discarded when the connection is closed.
+ *
+ * @param <T> the type of the handled body
+ *
+ * @author Amir
+ * @see HttpBodyResponse
+ * @since 1.1
+ */
+@FunctionalInterface
+public interface BodyHandler<T> {
+
+  /**
+   * Handles the body of the given response.
+   *
+   * @param response the response, exposing the status line and headers
+   * @param body     the response body stream, empty if the response has no body
+   *
+   * @return the handled body
+   *
+   * @throws IOException if the body could not be read or handled
+   */
+  T handle(AbstractHttpResponse response, InputStream body) throws IOException;
+
+  /**
+   * Returns a handler reading the body into a byte array.
+   *
+   * @return the handler
+   */
+  static BodyHandler<byte[]> ofByteArray() {
+    return (response, body) -> body.readAllBytes();
+  }
+
+  /**
+   * Returns a handler decoding the body to a string using the charset of the response content
+   * type, or UTF-8 if it has none.
+   *
+   * @return the handler
+   */
+  static BodyHandler<String> ofString() {
+    return (response, body) -> new String(body.readAllBytes(),
+        HttpResponse.parseCharset(response.getHeader(HttpHeaders.CONTENT_TYPE)));
+  }
+
+  /**
+   * Returns a handler passing each line of the body to the given consumer, decoded using the
+   * charset of the response content type, or UTF-8 if it has none. The handler returns the number
+   * of lines read.
+   *
+   * @param consumer the line consumer
+   *
+   * @return the handler
+   */
+  static BodyHandler<Long> ofLines(final Consumer<String> consumer) {
+    Args.notNull(consumer, "consumer");
+    return (response, body) -> {
+      final BufferedReader reader = new BufferedReader(new InputStreamReader(body,
+          HttpResponse.parseCharset(response.getHeader(HttpHeaders.CONTENT_TYPE))));
+      long count = 0;
+      String line;
+
+      while ((line = reader.readLine()) != null) {
+        consumer.accept(line);
+        count++;
+      }
+
+      return count;
+    };
+  }
+
+  /**
+   * Returns a handler writing the body to the given file, replacing it if it exists.
+   *
+   * @param target the file to write
+   *
+   * @return the handler
+   */
+  static BodyHandler<Path> ofFile(final Path target) {
+    Args.notNull(target, "target");
+    return (response, body) -> {
+      Files.copy(body, target, StandardCopyOption.REPLACE_EXISTING);
+      return target;
+    };
+  }
+
+  /**
+   * Returns a handler that discards the body without reading it.
+   *
+   * @return the handler
+   */
+  static BodyHandler<Void> discarding() {
+    return (response, body) -> null;
+  }
+}
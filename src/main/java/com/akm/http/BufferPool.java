@@ -0,0 +1,168 @@
+package com.akm.http;
+
+import java.nio.ByteBuffer;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Internal pool of reusable I/O buffers.
+ * <p>
+ * Buffers are grouped into power-of-two size classes from {@value #MIN_SIZE} to {@value #MAX_SIZE}
+ * bytes; a request is served from the smallest class that fits it, so an acquired buffer may be
+ * larger than asked for. Larger requests are allocated and never pooled.
+ * <p>
+ * Requests run on short-lived threads, so thread-local caches would rarely be hit. Instead each
+ * size class is split into a small number of stripes, selected by thread id, which keeps lock
+ * contention low while letting any thread reuse buffers released by earlier ones. Each stripe holds
+ * at most a few buffers, bounding the memory retained by the pool.
+ *
+ * @param <T> the buffer type
+ *
+ * @author Amir
+ * @since 1.1
+ */
+final class BufferPool<T> {
+
+  /**
+   * The smallest pooled buffer size.
+   */
+  static final int MIN_SIZE = 8 * 1024;
+
+  /**
+   * The largest pooled buffer size.
+   */
+  static final int MAX_SIZE = 256 * 1024;
+
+  private static final int MIN_SHIFT = Integer.numberOfTrailingZeros(MIN_SIZE);
+  private static final int CLASSES = Integer.numberOfTrailingZeros(MAX_SIZE) - MIN_SHIFT + 1;
+  private static final int STRIPE_CAPACITY = 2;
+
+  /**
+   * The shared pool of heap buffers.
+   */
+  static final BufferPool<byte[]> HEAP = new BufferPool<>(byte[]::new, b -> b.length);
+
+  /**
+   * The shared pool of direct buffers.
+   */
+  static final BufferPool<ByteBuffer> DIRECT = new BufferPool<>(ByteBuffer::allocateDirect,
+      ByteBuffer::capacity);
+
+  private final IntFunction<T> allocator;
+  private final ToIntFunction<T> capacity;
+  private final Stripe[][] stripes;
+  private final int stripeMask;
+
+  /**
+   * Creates a pool using the given allocator.
+   *
+   * @param allocator the function allocating a buffer of a given size
+   * @param capacity  the function returning the size of a buffer
+   */
+  BufferPool(final IntFunction<T> allocator, final ToIntFunction<T> capacity) {
+    this.allocator = allocator;
+    this.capacity = capacity;
+
+    final int count = Integer.highestOneBit(
+        Math.max(1, Runtime.getRuntime().availableProcessors() - 1) << 1);
+    stripeMask = count - 1;
+    stripes = new Stripe[CLASSES][count];
+
+    for (final Stripe[] sizeClass : stripes) {
+      for (int i = 0; i < count; i++) {
+        sizeClass[i] = new Stripe();
+      }
+    }
+  }
+
+  /**
+   * Returns a buffer of at least the given size, reusing a pooled one if available. The contents
+   * and, for a {@link ByteBuffer}, the position and limit of a reused buffer are undefined.
+   *
+   * @param size the minimum size
+   *
+   * @return the buffer
+   */
+  T acquire(final int size) {
+    final int index = sizeClass(size);
+
+    if (index < 0) {
+      return allocator.apply(size);
+    }
+
+    @SuppressWarnings("unchecked")
+    final T buffer = (T) stripe(index).poll();
+    return buffer != null ? buffer : allocator.apply(MIN_SIZE << index);
+  }
+
+  /**
+   * Returns the given buffer to the pool. Buffers whose size is not one of the pool's size classes
+   * are dropped. The buffer must not be used after it has been released.
+   *
+   * @param buffer the buffer, may be null
+   */
+  void release(final T buffer) {
+    if (buffer == null) {
+      return;
+    }
+
+    final int size = capacity.applyAsInt(buffer);
+    final int index = sizeClass(size);
+
+    if (index >= 0 && MIN_SIZE << index == size) {
+      stripe(index).offer(buffer);
+    }
+  }
+
+  /**
+   * Returns the index of the smallest size class holding the given size.
+   *
+   * @param size the size
+   *
+   * @return the size class index, or -1 if the size is too large to be pooled
+   */
+  private static int sizeClass(final int size) {
+    if (size > MAX_SIZE) {
+      return -1;
+    }
+
+    return size <= MIN_SIZE ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_SHIFT;
+  }
+
+  /**
+   * Returns the stripe of the given size class used by the current thread.
+   *
+   * @param index the size class index
+   *
+   * @return the stripe
+   */
+  private Stripe stripe(final int index) {
+    return stripes[index][(int) Thread.currentThread().getId() & stripeMask];
+  }
+
+  /**
+   * A small bounded stack of buffers. Only buffers of the pool's type are offered, so the pool can
+   * safely cast the buffers it polls.
+   */
+  private static final class Stripe {
+
+    private final Object[] buffers = new Object[STRIPE_CAPACITY];
+    private int size;
+
+    synchronized Object poll() {
+      if (size == 0) {
+        return null;
+      }
+
+      final Object buffer = buffers[--size];
+      buffers[size] = null;
+      return buffer;
+    }
+
+    synchronized void offer(final Object buffer) {
+      if (size < buffers.length) {
+        buffers[size++] = buffer;
+      }
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package com.akm.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.io.entity.HttpEntityWrapper;
+
+/**
+ * Internal entity that compresses the wrapped request entity as it is written.
+ * <p>
+ * The body is never compressed upfront: the wrapped entity writes into a compressor that writes to
+ * the connection, so memory use does not depend on the size of the body. As the compressed length
+ * is not known in advance, the body is sent with chunked transfer encoding. The bytes on both sides
+ * of the compressor and the CPU time spent writing the body are added to the service metrics.
+ *
+ * @author Amir
+ * @see HttpServiceConfig#setRequestCompression(String)
+ * @since 1.1
+ */
+final class CompressingEntity extends HttpEntityWrapper {
+
+  private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+  /**
+   * The size of the output buffer of the compressor.
+   */
+  private static final int ENCODER_BUFFER_SIZE = 8192;
+
+  private final String encoding;
+  private final HttpServiceMetrics metrics;
+
+  /**
+   * Creates an entity compressing the given one.
+   *
+   * @param entity   the entity to compress
+   * @param encoding the content encoding, <code>gzip</code> or <code>deflate</code>
+   * @param metrics  the metrics to update
+   */
+  CompressingEntity(final HttpEntity entity, final String encoding,
+      final HttpServiceMetrics metrics) {
+    super(entity);
+    this.encoding = encoding;
+    this.metrics = metrics;
+  }
+
+  @Override
+  public String getContentEncoding() {
+    return encoding;
+  }
+
+  @Override
+  public long getContentLength() {
+    return -1;
+  }
+
+  @Override
+  public boolean isChunked() {
+    return true;
+  }
+
+  @Override
+  public InputStream getContent() {
+    throw new UnsupportedOperationException("compressed content can only be written");
+  }
+
+  @Override
+  public void writeTo(final OutputStream out) throws IOException {
+    final boolean timed = THREADS.isCurrentThreadCpuTimeSupported();
+    final long start = timed ? THREADS.getCurrentThreadCpuTime() : 0;
+    final OutputStream compressed = new CountingOutputStream(out,
+        metrics::addCompressedRequestBytes);
+    final DeflaterOutputStream encoder = "gzip".equals(encoding)
+        ? new GZIPOutputStream(compressed, ENCODER_BUFFER_SIZE)
+        : new DeflaterOutputStream(compressed, new Deflater(), ENCODER_BUFFER_SIZE) {
+          @Override
+          public void close() throws IOException {
+            // the default deflater is only released by close, not by finish
+            try {
+              super.close();
+            } finally {
+              def.end();
+            }
+          }
+        };
+
+    try (OutputStream body = new CountingOutputStream(encoder,
+        metrics::addUncompressedRequestBytes)) {
+      super.writeTo(body);
+      encoder.finish();
+    } finally {
+      encoder.close();
+      metrics.recordCompressedRequest();
+      if (timed) {
+        metrics.addRequestCompressionNanos(THREADS.getCurrentThreadCpuTime() - start);
+      }
+    }
+  }
+}
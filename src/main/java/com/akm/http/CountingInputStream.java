@@ -0,0 +1,60 @@
+package com.akm.http;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.LongConsumer;
+
+/**
+ * Internal stream that reports the number of bytes read from the wrapped stream.
+ *
+ * @author Amir
+ * @since 1.1
+ */
+final class CountingInputStream extends FilterInputStream {
+
+  private final LongConsumer counter;
+
+  /**
+   * Creates a stream reporting every read to the given counter.
+   *
+   * @param in      the stream to wrap
+   * @param counter the counter receiving the number of bytes of each read
+   */
+  CountingInputStream(final InputStream in, final LongConsumer counter) {
+    super(in);
+    this.counter = counter;
+  }
+
+  @Override
+  public int read() throws IOException {
+    final int b = in.read();
+    if (b != -1) {
+      counter.accept(1);
+    }
+    return b;
+  }
+
+  @Override
+  public int read(final byte[] b, final int off, final int len) throws IOException {
+    final int read = in.read(b, off, len);
+    if (read > 0) {
+      counter.accept(read);
+    }
+    return read;
+  }
+
+  @Override
+  public long skip(final long n) throws IOException {
+    final long skipped = in.skip(n);
+    if (skipped > 0) {
+      counter.accept(skipped);
+    }
+    return skipped;
+  }
+
+  @Override
+  public boolean markSupported() {
+    return false;
+  }
+}
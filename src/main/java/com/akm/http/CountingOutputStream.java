@@ -0,0 +1,50 @@
+package com.akm.http;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.function.LongConsumer;
+
+/**
+ * Internal stream that reports the number of bytes written to the wrapped stream.
+ *
+ * @author Amir
+ * @since 1.1
+ */
+final class CountingOutputStream extends FilterOutputStream {
+
+  private final LongConsumer counter;
+
+  /**
+   * Creates a stream reporting every write to the given counter.
+   *
+   * @param out     the stream to wrap
+   * @param counter the counter receiving the number of bytes of each write
+   */
+  CountingOutputStream(final OutputStream out, final LongConsumer counter) {
+    super(out);
+    this.counter = counter;
+  }
+
+  @Override
+  public void write(final int b) throws IOException {
+    out.write(b);
+    counter.accept(1);
+  }
+
+  @Override
+  public void write(final byte[] b, final int off, final int len) throws IOException {
+    out.write(b, off, len);
+    if (len > 0) {
+      counter.accept(len);
+    }
+  }
+
+  /**
+   * Does not close the wrapped stream, which belongs to the connection.
+   */
+  @Override
+  public void close() throws IOException {
+    flush();
+  }
+}
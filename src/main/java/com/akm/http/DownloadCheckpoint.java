@@ -0,0 +1,163 @@
+package com.akm.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.MessageHeaders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Internal record of an unfinished resumable download.
+ * <p>
+ * While a download to <code>target</code> is in progress, its content is written to
+ * <code>target.part</code> and the validators of the response to
+ * <code>target.checkpoint</code>. The number of bytes already downloaded is the size of the part
+ * file, as it is only ever written sequentially. Once the download completes, the part file is
+ * moved to the target and the checkpoint deleted.
+ *
+ * @author Amir
+ * @see HttpService#resumableDownload(String, java.util.Map, java.util.Map, Path)
+ * @since 1.1
+ */
+final class DownloadCheckpoint {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(DownloadCheckpoint.class);
+
+  private static final String URL = "url";
+  private static final String ETAG = "etag";
+  private static final String LAST_MODIFIED = "last-modified";
+
+  private final String url;
+  private final String etag;
+  private final String lastModified;
+
+  DownloadCheckpoint(final String url, final String etag, final String lastModified) {
+    this.url = url;
+    this.etag = etag;
+    this.lastModified = lastModified;
+  }
+
+  /**
+   * Returns a checkpoint for the given url holding the validators of the given response.
+   *
+   * @param url      the url of the download
+   * @param response the response whose body is being downloaded
+   *
+   * @return the checkpoint
+   */
+  static DownloadCheckpoint of(final String url, final MessageHeaders response) {
+    final Header etag = response.getFirstHeader(HttpHeaders.ETAG);
+    final Header lastModified = response.getFirstHeader(HttpHeaders.LAST_MODIFIED);
+    return new DownloadCheckpoint(url, etag != null ? etag.getValue() : null,
+        lastModified != null ? lastModified.getValue() : null);
+  }
+
+  /**
+   * Loads the checkpoint of an unfinished download of the given url to the given file.
+   *
+   * @param target the target file of the download
+   * @param url    the url of the download
+   *
+   * @return the checkpoint, or null if there is none for the url or it could not be read
+   */
+  static DownloadCheckpoint load(final Path target, final String url) {
+    final Path file = checkpointFile(target);
+
+    if (!Files.exists(file) || !Files.exists(partFile(target))) {
+      return null;
+    }
+
+    final Properties properties = new Properties();
+    try (InputStream in = Files.newInputStream(file)) {
+      properties.load(in);
+    } catch (final IOException e) {
+      LOGGER.warn("unable to read download checkpoint {}", file, e);
+      return null;
+    }
+
+    if (!url.equals(properties.getProperty(URL))) {
+      return null;
+    }
+
+    return new DownloadCheckpoint(url, properties.getProperty(ETAG),
+        properties.getProperty(LAST_MODIFIED));
+  }
+
+  /**
+   * Returns the file the content of an unfinished download is written to.
+   *
+   * @param target the target file of the download
+   *
+   * @return the part file
+   */
+  static Path partFile(final Path target) {
+    return target.resolveSibling(target.getFileName() + ".part");
+  }
+
+  /**
+   * Returns the file the checkpoint of an unfinished download is written to.
+   *
+   * @param target the target file of the download
+   *
+   * @return the checkpoint file
+   */
+  static Path checkpointFile(final Path target) {
+    return target.resolveSibling(target.getFileName() + ".checkpoint");
+  }
+
+  /**
+   * Returns the validator to send in an <code>If-Range</code> header: the entity tag if it is a
+   * strong one, otherwise the last modification date. Weak entity tags cannot be used to validate
+   * ranges.
+   *
+   * @return the validator, or null if the download cannot be safely resumed
+   */
+  String getValidator() {
+    return getValidator(etag, lastModified);
+  }
+
+  /**
+   * Returns the validator to send in an <code>If-Range</code> header for content with the given
+   * entity tag and last modification date.
+   *
+   * @param etag         the entity tag, may be null
+   * @param lastModified the last modification date, may be null
+   *
+   * @return the validator, or null if there is none usable for ranges
+   */
+  static String getValidator(final String etag, final String lastModified) {
+    if (etag != null && !etag.startsWith("W/")) {
+      return etag;
+    }
+
+    return lastModified;
+  }
+
+  /**
+   * Writes this checkpoint alongside the given target file.
+   *
+   * @param target the target file of the download
+   *
+   * @throws IOException if the checkpoint could not be written
+   */
+  void save(final Path target) throws IOException {
+    final Properties properties = new Properties();
+    properties.setProperty(URL, url);
+    if (etag != null) {
+      properties.setProperty(ETAG, etag);
+    }
+    if (lastModified != null) {
+      properties.setProperty(LAST_MODIFIED, lastModified);
+    }
+
+    try (OutputStream out = Files.newOutputStream(checkpointFile(target))) {
+      properties.store(out, null);
+    }
+  }
+}
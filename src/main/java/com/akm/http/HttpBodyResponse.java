@@ -0,0 +1,43 @@
+package com.akm.http;
+
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.message.StatusLine;
+
+/**
+ * This class represents an HTTP response whose body was converted by a {@link BodyHandler}.
+ * <p>
+ * The response headers and status line related info are accessible through the object, and the
+ * handled body through {@link #getBody()}.
+ *
+ * @param <T> the type of the handled body
+ *
+ * @author Amir
+ * @see BodyHandler
+ * @since 1.1
+ */
+public final class HttpBodyResponse<T> extends AbstractHttpResponse {
+
+  private T body;
+
+  HttpBodyResponse(final Header[] headers, final StatusLine statusLine) {
+    super(headers, statusLine);
+  }
+
+  /**
+   * Returns the body produced by the handler.
+   *
+   * @return the handled body
+   */
+  public T getBody() {
+    return body;
+  }
+
+  /**
+   * Sets the handled body, once the handler has returned.
+   *
+   * @param body the handled body
+   */
+  void setBody(final T body) {
+    this.body = body;
+  }
+}
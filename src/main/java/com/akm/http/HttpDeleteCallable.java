@@ -29,6 +29,6 @@ final class HttpDeleteCallable extends AbstractHttpCallable {
     addHeaders(delete);
     addRequestParameters(delete);
 
-    return client.execute(delete);
+    return execute(client, delete);
   }
 }
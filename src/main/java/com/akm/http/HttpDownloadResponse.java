@@ -0,0 +1,87 @@
+package com.akm.http;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.message.StatusLine;
+
+/**
+ * This class represents an HTTP response whose body was written to a file.
+ * <p>
+ * The body is transferred from the connection to the file through a direct buffer and never held
+ * on the heap. Besides the response headers and status line, the object reports how many bytes
+ * were written and how long the transfer took.
+ *
+ * @author Amir
+ * @see HttpService#download(String, java.util.Map, java.util.Map, Path)
+ * @see HttpService#resumableDownload(String, java.util.Map, java.util.Map, Path)
+ * @since 1.1
+ */
+public final class HttpDownloadResponse extends AbstractHttpResponse {
+
+  private final Path path;
+  private final long bytesTransferred;
+  private final long elapsedNanos;
+  private final long resumeOffset;
+
+  HttpDownloadResponse(final Header[] headers, final StatusLine statusLine, final Path path,
+      final long bytesTransferred, final long elapsedNanos) {
+    this(headers, statusLine, path, bytesTransferred, elapsedNanos, 0);
+  }
+
+  HttpDownloadResponse(final Header[] headers, final StatusLine statusLine, final Path path,
+      final long bytesTransferred, final long elapsedNanos, final long resumeOffset) {
+    super(headers, statusLine);
+
+    this.path = path;
+    this.bytesTransferred = bytesTransferred;
+    this.elapsedNanos = elapsedNanos;
+    this.resumeOffset = resumeOffset;
+  }
+
+  /**
+   * Returns the file the response body was written to.
+   *
+   * @return the target file
+   */
+  public Path getPath() {
+    return path;
+  }
+
+  /**
+   * Returns the number of body bytes written to the file by this request.
+   *
+   * @return the number of bytes transferred
+   */
+  public long getBytesTransferred() {
+    return bytesTransferred;
+  }
+
+  /**
+   * Returns the number of bytes that were already downloaded by an earlier attempt and not
+   * transferred again, if the download was resumed.
+   *
+   * @return the offset the download was resumed from, or 0 if it was not resumed
+   */
+  public long getResumeOffset() {
+    return resumeOffset;
+  }
+
+  /**
+   * Returns the time taken from sending the request to writing the last byte of the body.
+   *
+   * @return the elapsed time
+   */
+  public Duration getElapsedTime() {
+    return Duration.ofNanos(elapsedNanos);
+  }
+
+  /**
+   * Returns the average throughput of the download.
+   *
+   * @return the throughput in bytes per second, or 0 if nothing was transferred
+   */
+  public double getThroughput() {
+    return elapsedNanos > 0 ? bytesTransferred * 1e9 / elapsedNanos : 0;
+  }
+}
@@ -28,6 +28,6 @@ final class HttpGetCallable extends AbstractHttpCallable {
     addHeaders(get);
     addRequestParameters(get);
 
-    return client.execute(get);
+    return execute(client, get);
   }
 }
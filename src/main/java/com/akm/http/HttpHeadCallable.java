@@ -28,6 +28,6 @@ final class HttpHeadCallable extends AbstractHttpCallable {
     addHeaders(head);
     addRequestParameters(head);
 
-    return client.execute(head);
+    return execute(client, head);
   }
 }
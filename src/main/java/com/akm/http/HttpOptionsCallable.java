@@ -29,6 +29,6 @@ final class HttpOptionsCallable extends AbstractHttpCallable {
     addHeaders(options);
     addRequestParameters(options);
 
-    return client.execute(options);
+    return execute(client, options);
   }
 }
@@ -35,6 +35,6 @@ final class HttpPatchCallable extends AbstractHttpCallable {
     addHeaders(patch);
     addPostParameters(patch);
 
-    return client.execute(patch);
+    return execute(client, patch);
   }
 }
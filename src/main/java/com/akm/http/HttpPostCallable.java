@@ -34,6 +34,6 @@ final class HttpPostCallable extends AbstractHttpCallable {
     addRequestParameters(post);
     addPostParameters(post);
 
-    return client.execute(post);
+    return execute(client, post);
   }
 }
@@ -33,6 +33,6 @@ final class HttpPutCallable extends AbstractHttpCallable {
     addHeaders(put);
     addPostParameters(put);
 
-    return client.execute(put);
+    return execute(client, put);
   }
 }
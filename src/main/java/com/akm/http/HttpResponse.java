@@ -1,115 +1,155 @@
 package com.akm.http;
 
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.hc.core5.http.ContentType;
 import org.apache.hc.core5.http.Header;
 import org.apache.hc.core5.http.message.StatusLine;
-import org.apache.hc.core5.util.Args;
-
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Objects;
 
 /**
  * This class represents an HTTP response.
  * <p>
  * The response headers, status line related info, and the response data are all accessible through
  * the object.
+ * <p>
+ * The response body is held as raw bytes. It is only decoded to a string the first time
+ * {@link #getData()} is called, using the charset of the response content type. Bodies larger than
+ * the maximum in-memory size of the service are held in a temporary file instead, which is deleted
+ * once the response is no longer reachable; {@link #getInputStream()} and {@link #asByteBuffer()}
+ * read such bodies without loading them on the heap.
  *
  * @author Amir
+ * @see HttpServiceConfig#setMaxInMemoryBodySize(long)
  * @since 0.1
  */
-public final class HttpResponse {
+public final class HttpResponse extends AbstractHttpResponse {
 
-  private final Map<String, String> headers;
-  private final int statusCode;
-  private final String statusMessage;
-  private final String protocol;
-  private final String data;
+  /**
+   * The default charsets of the mime types known to httpcore, used when a content type does not
+   * name its charset.
+   */
+  private static final Map<String, Charset> DEFAULT_CHARSETS = Stream
+      .of(ContentType.APPLICATION_ATOM_XML, ContentType.APPLICATION_FORM_URLENCODED,
+          ContentType.APPLICATION_JSON, ContentType.APPLICATION_SVG_XML,
+          ContentType.APPLICATION_XHTML_XML, ContentType.APPLICATION_XML,
+          ContentType.MULTIPART_FORM_DATA, ContentType.TEXT_HTML, ContentType.TEXT_PLAIN,
+          ContentType.TEXT_XML)
+      .filter(type -> type.getCharset() != null)
+      .collect(Collectors.toMap(ContentType::getMimeType, ContentType::getCharset));
+
+  private final ResponseBody body;
+  private final String contentType;
+  private Charset charset;
+  private volatile String data;
 
   HttpResponse(final Header[] headers, final StatusLine statusLine,
-               final String data) {
-    Objects.requireNonNull(headers, "headers");
-    Objects.requireNonNull(statusLine, "status line");
-
-    // set header info
-    this.headers = new HashMap<>();
-    for (final Header header : headers) {
-      this.headers.put(header.getName(), header.getValue());
-    }
-
-    // set status line info
-    this.statusCode = statusLine.getStatusCode();
-    this.statusMessage = statusLine.getReasonPhrase();
-    this.protocol = statusLine.getProtocolVersion().toString();
+               final ResponseBody body, final String contentType) {
+    super(headers, statusLine);
 
     // set data
-    this.data = data;
+    this.body = body;
+    this.contentType = contentType;
   }
 
   /**
-   * Returns a formatted string of the status line including the protocol. status code, and
-   * message.
+   * Returns the charset used to decode the response data. This is the charset of the response
+   * content type, or the default charset of its mime type, or UTF-8 if neither is known.
    *
-   * @return the status line
+   * @return the charset
    */
-  public String getStatusLine() {
-    return String.format("%s %s %s", protocol, statusCode, statusMessage);
+  public Charset getCharset() {
+    if (charset == null) {
+      charset = parseCharset(contentType);
+    }
+
+    return charset;
   }
 
   /**
-   * Returns the value of the given header.
+   * Returns the charset of the given content type, or the default charset of its mime type, or
+   * UTF-8 if neither is known.
    *
-   * @param name the name of the header
+   * @param contentType the content type, may be null
    *
-   * @return the value of the header
+   * @return the charset
    */
-  public String getHeader(final String name) {
-    Args.notBlank(name, "header name");
+  static Charset parseCharset(final String contentType) {
+    final ContentType type = ContentType.parseLenient(contentType);
+    Charset cs = type != null ? type.getCharset() : null;
 
-    return headers.get(name);
+    if (cs == null && type != null) {
+      cs = DEFAULT_CHARSETS.get(type.getMimeType());
+    }
+
+    return cs != null ? cs : StandardCharsets.UTF_8;
   }
 
   /**
-   * Returns the map of response headers.
+   * Returns the size of the response body in bytes.
    *
-   * @return the map of headers
+   * @return the body size, or -1 if the response has no body
    */
-  public Map<String, String> getHeaders() {
-    return headers;
+  public long getBodySize() {
+    return body != null ? body.size() : -1;
   }
 
   /**
-   * Returns the status code of the response.
+   * Returns a copy of the raw response body. If the body is held in a temporary file, it is read
+   * into memory.
+   *
+   * @return the response body, or null if the response has no body
    *
-   * @return the status code
+   * @throws java.io.UncheckedIOException if the temporary file could not be read
    */
-  public int getStatusCode() {
-    return statusCode;
+  public byte[] getBytes() {
+    return body != null ? body.bytes() : null;
   }
 
   /**
-   * Returns the status message of the response.
+   * Returns a read-only buffer over the raw response body, without copying it. If the body is held
+   * in a temporary file, the file is mapped into memory.
    *
-   * @return the status message
+   * @return the response body, or null if the response has no body
+   *
+   * @throws java.io.UncheckedIOException if the temporary file could not be mapped
    */
-  public String getStatusMessage() {
-    return statusMessage;
+  public ByteBuffer asByteBuffer() {
+    return body != null ? body.buffer() : null;
   }
 
   /**
-   * Returns the protocol used.
+   * Returns a new stream reading the raw response body.
+   *
+   * @return the response body stream, or null if the response has no body
    *
-   * @return the protocol
+   * @throws java.io.UncheckedIOException if the temporary file could not be opened
    */
-  public String getProtocol() {
-    return protocol;
+  public InputStream getInputStream() {
+    return body != null ? body.inputStream() : null;
   }
 
   /**
-   * Returns the response data as a string.
+   * Returns the response data as a string. The body is decoded on the first call and the result is
+   * cached.
    *
-   * @return the data
+   * @return the data, or null if the response has no body
+   *
+   * @throws java.io.UncheckedIOException if the temporary file could not be read
    */
   public String getData() {
-    return data;
+    String result = data;
+
+    if (result == null && body != null) {
+      final byte[] bytes = body.isFile() ? body.bytes() : body.array();
+      result = new String(bytes, getCharset());
+      data = result;
+    }
+
+    return result;
   }
 }
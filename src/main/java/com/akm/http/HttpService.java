@@ -1,27 +1,181 @@
 package com.akm.http;
 
+import com.akm.http.balancer.Endpoint;
+import com.akm.http.balancer.EndpointGroup;
 import com.akm.http.exception.HttpServiceException;
+import java.io.Closeable;
+import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.TextUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * HTTP request service.
+ * <p>
+ * The service only holds resources when an {@link EndpointGroup} with active health checks is
+ * registered, in which case it should be closed once no longer needed.
  *
  * @author Amir
  * @since 0.1
  */
-public final class HttpService {
+public final class HttpService implements Closeable {
 
   private static final Logger LOGGER = LoggerFactory
       .getLogger(HttpService.class);
 
+  /**
+   * The smallest range fetched by a ranged download.
+   */
+  private static final long MIN_RANGE_SIZE = 256 * 1024;
+
+  /**
+   * The registered endpoint groups, keyed by their logical service name.
+   */
+  private final Map<String, EndpointGroup> endpointGroups = new ConcurrentHashMap<>();
+
+  /**
+   * The scheduled health checks, keyed by the logical service name of their endpoint group.
+   */
+  private final Map<String, ScheduledFuture<?>> healthChecks = new ConcurrentHashMap<>();
+
+  /**
+   * The scheduler running active health checks, created when first needed.
+   */
+  private ScheduledExecutorService healthCheckScheduler;
+
+  /**
+   * The threads probing endpoints concurrently during active health checks, created when first
+   * needed.
+   */
+  private ExecutorService healthCheckProbes;
+
+  /**
+   * The configuration of this service.
+   */
+  private final HttpServiceConfig config;
+
+  /**
+   * The transfer metrics of this service.
+   */
+  private final HttpServiceMetrics metrics = new HttpServiceMetrics();
+
+  /**
+   * Creates a service with the default configuration.
+   */
+  public HttpService() {
+    this(new HttpServiceConfig());
+  }
+
+  /**
+   * Creates a service with the given configuration.
+   *
+   * @param config the service configuration
+   */
+  public HttpService(final HttpServiceConfig config) {
+    this.config = Args.notNull(config, "config");
+  }
+
+  /**
+   * Returns the configuration of this service.
+   *
+   * @return the service configuration
+   */
+  public HttpServiceConfig getConfig() {
+    return config;
+  }
+
+  /**
+   * Returns the transfer metrics of this service.
+   *
+   * @return the service metrics
+   */
+  public HttpServiceMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Registers the given {@link EndpointGroup}. Any subsequent request whose url host matches the
+   * group name is load balanced across the group's endpoints. A previously registered group with the
+   * same name is replaced.
+   *
+   * @param group the endpoint group to register
+   */
+  public void register(final EndpointGroup group) {
+    endpointGroups.put(group.getName(), group);
+    cancelHealthCheck(group.getName());
+
+    if (group.getHealthCheckPath() != null) {
+      final long interval = group.getHealthCheckInterval().toNanos();
+      healthChecks.put(group.getName(), getHealthCheckScheduler().scheduleWithFixedDelay(
+          () -> checkHealth(group), interval, interval, TimeUnit.NANOSECONDS));
+    }
+  }
+
+  /**
+   * Removes the {@link EndpointGroup} registered under the given logical service name.
+   *
+   * @param name the logical service name
+   *
+   * @return the removed group, or null if no group was registered with the name
+   */
+  public EndpointGroup unregister(final String name) {
+    final String key = name.toLowerCase(Locale.ROOT);
+    cancelHealthCheck(key);
+    return endpointGroups.remove(key);
+  }
+
+  /**
+   * Stops all active health checks. Registered endpoint groups are kept, but no longer probed.
+   */
+  @Override
+  public void close() {
+    healthChecks.keySet().forEach(this::cancelHealthCheck);
+
+    synchronized (this) {
+      if (healthCheckScheduler != null) {
+        healthCheckScheduler.shutdownNow();
+        healthCheckScheduler = null;
+      }
+
+      if (healthCheckProbes != null) {
+        healthCheckProbes.shutdownNow();
+        healthCheckProbes = null;
+      }
+    }
+  }
+
   /**
    * Performs an HTTP GET request to the given url using the specified headers and parameters. If
    * the request is successful an {@link HttpResponse} is returned.
@@ -39,6 +193,271 @@ public final class HttpService {
     return doRequest(HttpGetCallable.class, url, headers, parameters, null);
   }
 
+  /**
+   * Performs an HTTP GET request to the given url using the specified headers and parameters,
+   * converting the response body with the given handler as it is read. If the request is
+   * successful an {@link HttpBodyResponse} is returned.
+   *
+   * @param url        the url to send the request
+   * @param headers    the map of headers to set
+   * @param parameters the map of parameters to set
+   * @param handler    the response body handler
+   * @param <B>        the type of the handled body
+   *
+   * @return the HttpBodyResponse
+   *
+   * @throws HttpServiceException if any errors occur while executing the request or handling the
+   *                              body
+   */
+  public <B> HttpBodyResponse<B> get(final String url, final Map<String, String> headers,
+      final Map<String, String> parameters, final BodyHandler<B> handler)
+      throws HttpServiceException {
+    Args.notNull(handler, "handler");
+    return doRequest(HttpGetCallable.class, url, headers, parameters, null,
+        callable -> () -> callable.call(handler));
+  }
+
+  /**
+   * Performs an HTTP GET request to the given url using the specified headers and parameters,
+   * without reading the response body. If the request is successful an {@link HttpStreamResponse}
+   * is returned, whose body is read directly from the connection.
+   * <p>
+   * The returned response must be closed to release the connection.
+   *
+   * @param url        the url to send the request
+   * @param headers    the map of headers to set
+   * @param parameters the map of parameters to set
+   *
+   * @return the HttpStreamResponse
+   *
+   * @throws HttpServiceException if any errors occur while executing the request
+   */
+  public HttpStreamResponse stream(final String url, final Map<String, String> headers,
+      final Map<String, String> parameters) throws HttpServiceException {
+    return doRequest(HttpGetCallable.class, url, headers, parameters, null,
+        callable -> callable::stream);
+  }
+
+  /**
+   * Performs an HTTP GET request to the given url using the specified headers and parameters, and
+   * returns the lines of the response body as a lazily populated stream. Lines are read from the
+   * connection one at a time as the stream is consumed, so line-delimited bodies such as NDJSON
+   * exports of any size can be processed without being buffered.
+   * <p>
+   * The returned stream must be closed to release the connection, unless it is consumed to its
+   * end. The status of the response is not checked; use {@link HttpStreamResponse#lines()} on the
+   * result of {@link #stream(String, Map, Map)} to inspect it first.
+   *
+   * @param url        the url to send the request
+   * @param headers    the map of headers to set
+   * @param parameters the map of parameters to set
+   *
+   * @return the stream of lines
+   *
+   * @throws HttpServiceException if any errors occur while executing the request
+   */
+  public Stream<String> lines(final String url, final Map<String, String> headers,
+      final Map<String, String> parameters) throws HttpServiceException {
+    return stream(url, headers, parameters).lines();
+  }
+
+  /**
+   * Performs an HTTP GET request to the given url using the specified headers and parameters, and
+   * writes the response body to the given file, replacing it once the whole body has been received.
+   * The body is streamed from the connection to the file without being held in memory. If the
+   * request is successful an {@link HttpDownloadResponse} is returned; if the response does not
+   * have a 2xx status, its body is discarded and the file is left untouched.
+   *
+   * @param url        the url to send the request
+   * @param headers    the map of headers to set
+   * @param parameters the map of parameters to set
+   * @param target     the file to write the response body to
+   *
+   * @return the HttpDownloadResponse
+   *
+   * @throws HttpServiceException if any errors occur while executing the request or writing the
+   *                              file
+   */
+  public HttpDownloadResponse download(final String url, final Map<String, String> headers,
+      final Map<String, String> parameters, final Path target) throws HttpServiceException {
+    Args.notNull(target, "target");
+    return doRequest(HttpGetCallable.class, url, headers, parameters, null,
+        callable -> () -> callable.download(target));
+  }
+
+  /**
+   * Performs an HTTP GET request to the given url using the specified headers and parameters, and
+   * writes the response body to the given file, fetching ranges of it over up to the given number
+   * of concurrent connections. If the request is successful an {@link HttpDownloadResponse} is
+   * returned.
+   * <p>
+   * A HEAD request is sent first to learn the size and validator of the content. If the server
+   * accepts byte ranges, the content has a strong <code>ETag</code> or a
+   * <code>Last-Modified</code> date, and is large enough, a temporary file next to the target is
+   * pre-sized and each range is written directly at its offset as it arrives. The temporary file
+   * replaces the target once every range has been received; if any range fails, it is deleted and
+   * the target is left untouched. Every range is requested with an
+   * <code>If-Range</code> header, so that the file is never stitched together from two versions of
+   * the content: if the server answers any range with the whole content instead, the ranges are
+   * abandoned and the content is downloaded again over a single connection. Otherwise, the content
+   * is downloaded over a single connection as with {@link #download(String, Map, Map, Path)}.
+   *
+   * @param url         the url to send the request
+   * @param headers     the map of headers to set
+   * @param parameters  the map of parameters to set
+   * @param target      the file to write the response body to
+   * @param connections the maximum number of concurrent connections
+   *
+   * @return the HttpDownloadResponse
+   *
+   * @throws HttpServiceException if any errors occur while executing the requests or writing the
+   *                              file
+   */
+  public HttpDownloadResponse download(final String url, final Map<String, String> headers,
+      final Map<String, String> parameters, final Path target, final int connections)
+      throws HttpServiceException {
+    Args.notNull(target, "target");
+    Args.positive(connections, "connections");
+    final long start = System.nanoTime();
+
+    final Map<String, String> identity = getIdentityHeaders(headers);
+    final HttpResponse head = connections > 1 ? head(url, identity, parameters) : null;
+    final String validator = head != null ? DownloadCheckpoint.getValidator(
+        head.getHeader(HttpHeaders.ETAG), head.getHeader(HttpHeaders.LAST_MODIFIED)) : null;
+    final long length = validator != null ? getRangedLength(head) : -1;
+    final int parts = (int) Math.min(connections, length / MIN_RANGE_SIZE);
+
+    if (parts < 2) {
+      return download(url, headers, parameters, target);
+    }
+
+    LOGGER.info("downloading {} bytes from {} in {} ranges", length, url, parts);
+
+    final ExecutorService executor = Executors.newFixedThreadPool(parts);
+    final List<Future<HttpDownloadResponse>> futures = new ArrayList<>(parts);
+    boolean changed = false;
+    Path temp = null;
+
+    try {
+      // the ranges are written next to the target, which is only replaced once all have arrived
+      temp = Files.createTempFile(target.toAbsolutePath().getParent(),
+          target.getFileName().toString(), ".tmp");
+
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+        // pre-size the file so that every range can be written at its offset
+        channel.write(ByteBuffer.wrap(new byte[1]), length - 1);
+
+        final long rangeSize = length / parts;
+        for (int i = 0; i < parts; i++) {
+          final long offset = i * rangeSize;
+          final long end = i == parts - 1 ? length - 1 : offset + rangeSize - 1;
+          final Map<String, String> rangeHeaders = new HashMap<>(identity);
+          rangeHeaders.put(HttpHeaders.RANGE, "bytes=" + offset + "-" + end);
+          rangeHeaders.put(HttpHeaders.IF_RANGE, validator);
+
+          futures.add(executor.submit(() -> doRequest(HttpGetCallable.class, url, rangeHeaders,
+              parameters, null, callable -> () -> callable.downloadRange(target, channel, offset,
+                  end - offset + 1))));
+        }
+
+        for (final Future<HttpDownloadResponse> future : futures) {
+          if (future.get().getStatusCode() != HttpStatus.SC_PARTIAL_CONTENT) {
+            changed = true;
+            futures.forEach(other -> other.cancel(true));
+            break;
+          }
+        }
+      }
+
+      if (!changed) {
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (final IOException | InterruptedException | ExecutionException e) {
+      futures.forEach(future -> future.cancel(true));
+      if (temp != null) {
+        deleteQuietly(temp);
+      }
+
+      if (e instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      } else if (e.getCause() instanceof HttpServiceException) {
+        throw (HttpServiceException) e.getCause();
+      }
+
+      LOGGER.error("unable to download {} to {}", url, target, e);
+      throw new HttpServiceException(String.format("unable to download %s with cause %s",
+          url, e), e);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    if (changed) {
+      // the ranges written so far may belong to another version of the content
+      deleteQuietly(temp);
+      LOGGER.info("content of {} changed during ranged download, downloading it again", url);
+      return download(url, headers, parameters, target);
+    }
+
+    return new HttpDownloadResponse(head.rawHeaders(), head.rawStatusLine(), target, length,
+        System.nanoTime() - start);
+  }
+
+  /**
+   * Performs an HTTP GET request to the given url using the specified headers and parameters, and
+   * writes the response body to the given file, resuming an earlier attempt that failed part way.
+   * If the request is successful an {@link HttpDownloadResponse} is returned.
+   * <p>
+   * The body is first written to <code>target.part</code>, and the <code>ETag</code> and
+   * <code>Last-Modified</code> validators of the response to <code>target.checkpoint</code>. If the
+   * transfer fails, both files are kept; calling this method again for the same url and target
+   * requests only the missing bytes with a <code>Range</code> header, and an
+   * <code>If-Range</code> header so that the server sends the whole content instead if it changed
+   * in the meantime. Once the body is complete, the part file is moved to the target.
+   * <p>
+   * If the part file turns out to hold the whole content already, the server answers
+   * <code>416</code>; the part file is then moved to the target, and the returned response reports
+   * that status with no bytes transferred. Any other response that is neither <code>200</code> nor
+   * the requested partial content fails the download, keeping the part file and checkpoint.
+   *
+   * @param url        the url to send the request
+   * @param headers    the map of headers to set
+   * @param parameters the map of parameters to set
+   * @param target     the file to write the response body to
+   *
+   * @return the HttpDownloadResponse
+   *
+   * @throws HttpServiceException if any errors occur while executing the request or writing the
+   *                              file
+   */
+  public HttpDownloadResponse resumableDownload(final String url,
+      final Map<String, String> headers, final Map<String, String> parameters, final Path target)
+      throws HttpServiceException {
+    Args.notNull(target, "target");
+
+    final Map<String, String> request = getIdentityHeaders(headers);
+    final DownloadCheckpoint checkpoint = DownloadCheckpoint.load(target, url);
+    final String validator = checkpoint != null ? checkpoint.getValidator() : null;
+    long offset = 0;
+
+    if (validator != null) {
+      try {
+        offset = Files.size(DownloadCheckpoint.partFile(target));
+      } catch (final IOException e) {
+        LOGGER.warn("unable to read the size of {}", DownloadCheckpoint.partFile(target), e);
+      }
+    }
+
+    if (offset > 0) {
+      LOGGER.info("resuming download of {} to {} from offset {}", url, target, offset);
+      request.put(HttpHeaders.RANGE, "bytes=" + offset + "-");
+      request.put(HttpHeaders.IF_RANGE, validator);
+    }
+
+    final long position = offset;
+    return doRequest(HttpGetCallable.class, url, request, parameters, null,
+        callable -> () -> callable.resume(target, url, position, validator));
+  }
+
   /**
    * Performs an HTTP DELETE request to the given url using the specified headers and parameters. If
    * the request is successful an {@link HttpResponse} is returned.
@@ -57,6 +476,30 @@ public final class HttpService {
     return doRequest(HttpDeleteCallable.class, url, headers, parameters, null);
   }
 
+  /**
+   * Performs an HTTP DELETE request to the given url using the specified headers and parameters,
+   * converting the response body with the given handler as it is read. If the request is
+   * successful an {@link HttpBodyResponse} is returned.
+   *
+   * @param url        the url to send the request
+   * @param headers    the map of headers to set
+   * @param parameters the map of parameters to set
+   * @param handler    the response body handler
+   * @param <B>        the type of the handled body
+   *
+   * @return the HttpBodyResponse
+   *
+   * @throws HttpServiceException if any errors occur while executing the request or handling the
+   *                              body
+   */
+  public <B> HttpBodyResponse<B> delete(final String url, final Map<String, String> headers,
+      final Map<String, String> parameters, final BodyHandler<B> handler)
+      throws HttpServiceException {
+    Args.notNull(handler, "handler");
+    return doRequest(HttpDeleteCallable.class, url, headers, parameters, null,
+        callable -> () -> callable.call(handler));
+  }
+
   /**
    * Performs an HTTP HEAD request to the given url using the specified headers and parameters. If
    * the request is successful an {@link HttpResponse} is returned.
@@ -127,9 +570,81 @@ public final class HttpService {
   public HttpResponse post(final String url,
       final Map<String, String> headers,
       final Map<String, String> parameters, final String body) throws HttpServiceException {
+    return doRequest(HttpPostCallable.class, url, headers, parameters, toBody(body));
+  }
+
+  /**
+   * Performs an HTTP POST request to the given url using the specified headers, parameters, and
+   * body, converting the response body with the given handler as it is read. If the request is
+   * successful an {@link HttpBodyResponse} is returned.
+   *
+   * @param url        the url to send the request
+   * @param headers    the map of headers for the request
+   * @param parameters the map of parameters to send
+   * @param body       the request body, as a string
+   * @param handler    the response body handler
+   * @param <B>        the type of the handled body
+   *
+   * @return the HttpBodyResponse
+   *
+   * @throws HttpServiceException if any errors occur while executing the request or handling the
+   *                              body
+   */
+  public <B> HttpBodyResponse<B> post(final String url, final Map<String, String> headers,
+      final Map<String, String> parameters, final String body, final BodyHandler<B> handler)
+      throws HttpServiceException {
+    Args.notNull(handler, "handler");
+    return doRequest(HttpPostCallable.class, url, headers, parameters, toBody(body),
+        callable -> () -> callable.call(handler));
+  }
+
+  /**
+   * Performs an HTTP POST request to the given url using the specified headers, parameters, and
+   * body. The body is written to the connection as the request is sent, so streamed bodies are
+   * never held in memory. If the request is successful an {@link HttpResponse} is returned.
+   *
+   * @param url        the url to send the request
+   * @param headers    the map of headers for the request
+   * @param parameters the map of parameters to send
+   * @param body       the request body
+   *
+   * @return the HttpResponse
+   *
+   * @throws HttpServiceException if any errors occur while executing the request or sending the
+   *                              body
+   */
+  public HttpResponse postBody(final String url, final Map<String, String> headers,
+      final Map<String, String> parameters, final RequestBody body) throws HttpServiceException {
+    Args.notNull(body, "body");
     return doRequest(HttpPostCallable.class, url, headers, parameters, body);
   }
 
+  /**
+   * Performs an HTTP POST request to the given url using the specified headers, parameters, and
+   * body, converting the response body with the given handler as it is read. If the request is
+   * successful an {@link HttpBodyResponse} is returned.
+   *
+   * @param url        the url to send the request
+   * @param headers    the map of headers for the request
+   * @param parameters the map of parameters to send
+   * @param body       the request body
+   * @param handler    the response body handler
+   * @param <B>        the type of the handled body
+   *
+   * @return the HttpBodyResponse
+   *
+   * @throws HttpServiceException if any errors occur while executing the request, sending the
+   *                              body or handling the response body
+   */
+  public <B> HttpBodyResponse<B> postBody(final String url, final Map<String, String> headers,
+      final Map<String, String> parameters, final RequestBody body, final BodyHandler<B> handler)
+      throws HttpServiceException {
+    Args.notNull(body, "body");
+    Args.notNull(handler, "handler");
+    return doRequest(HttpPostCallable.class, url, headers, parameters, body,
+        callable -> () -> callable.call(handler));
+  }
+
   /**
    * Performs an HTTP PUT request to the given url using the specified headers, parameters, and body.
    * If the request is successful an {@link HttpResponse} is returned.
@@ -145,9 +660,81 @@ public final class HttpService {
    */
   public HttpResponse put(final String url, final Map<String, String> headers,
       final Map<String, String> parameters, final String body) throws HttpServiceException {
+    return doRequest(HttpPutCallable.class, url, headers, parameters, toBody(body));
+  }
+
+  /**
+   * Performs an HTTP PUT request to the given url using the specified headers, parameters, and
+   * body, converting the response body with the given handler as it is read. If the request is
+   * successful an {@link HttpBodyResponse} is returned.
+   *
+   * @param url        the url to send the request
+   * @param headers    the map of headers for the request
+   * @param parameters the map of parameters to send
+   * @param body       the request body, as a string
+   * @param handler    the response body handler
+   * @param <B>        the type of the handled body
+   *
+   * @return the HttpBodyResponse
+   *
+   * @throws HttpServiceException if any errors occur while executing the request or handling the
+   *                              body
+   */
+  public <B> HttpBodyResponse<B> put(final String url, final Map<String, String> headers,
+      final Map<String, String> parameters, final String body, final BodyHandler<B> handler)
+      throws HttpServiceException {
+    Args.notNull(handler, "handler");
+    return doRequest(HttpPutCallable.class, url, headers, parameters, toBody(body),
+        callable -> () -> callable.call(handler));
+  }
+
+  /**
+   * Performs an HTTP PUT request to the given url using the specified headers, parameters, and
+   * body. The body is written to the connection as the request is sent, so streamed bodies are
+   * never held in memory. If the request is successful an {@link HttpResponse} is returned.
+   *
+   * @param url        the url to send the request
+   * @param headers    the map of headers for the request
+   * @param parameters the map of parameters to send
+   * @param body       the request body
+   *
+   * @return the HttpResponse
+   *
+   * @throws HttpServiceException if any errors occur while executing the request or sending the
+   *                              body
+   */
+  public HttpResponse putBody(final String url, final Map<String, String> headers,
+      final Map<String, String> parameters, final RequestBody body) throws HttpServiceException {
+    Args.notNull(body, "body");
     return doRequest(HttpPutCallable.class, url, headers, parameters, body);
   }
 
+  /**
+   * Performs an HTTP PUT request to the given url using the specified headers, parameters, and
+   * body, converting the response body with the given handler as it is read. If the request is
+   * successful an {@link HttpBodyResponse} is returned.
+   *
+   * @param url        the url to send the request
+   * @param headers    the map of headers for the request
+   * @param parameters the map of parameters to send
+   * @param body       the request body
+   * @param handler    the response body handler
+   * @param <B>        the type of the handled body
+   *
+   * @return the HttpBodyResponse
+   *
+   * @throws HttpServiceException if any errors occur while executing the request, sending the
+   *                              body or handling the response body
+   */
+  public <B> HttpBodyResponse<B> putBody(final String url, final Map<String, String> headers,
+      final Map<String, String> parameters, final RequestBody body, final BodyHandler<B> handler)
+      throws HttpServiceException {
+    Args.notNull(body, "body");
+    Args.notNull(handler, "handler");
+    return doRequest(HttpPutCallable.class, url, headers, parameters, body,
+        callable -> () -> callable.call(handler));
+  }
+
   /**
    * Performs an HTTP PATCH request to the given url using the specified headers, parameters, and body.
    * If the request is successful an {@link HttpResponse} is returned.
@@ -164,11 +751,135 @@ public final class HttpService {
   public HttpResponse patch(final String url,
       final Map<String, String> headers,
       final Map<String, String> parameters, final String body) throws HttpServiceException {
+    return doRequest(HttpPatchCallable.class, url, headers, parameters, toBody(body));
+  }
+
+  /**
+   * Performs an HTTP PATCH request to the given url using the specified headers, parameters, and
+   * body, converting the response body with the given handler as it is read. If the request is
+   * successful an {@link HttpBodyResponse} is returned.
+   *
+   * @param url        the url to send the request
+   * @param headers    the map of headers for the request
+   * @param parameters the map of parameters to send
+   * @param body       the request body, as a string
+   * @param handler    the response body handler
+   * @param <B>        the type of the handled body
+   *
+   * @return the HttpBodyResponse
+   *
+   * @throws HttpServiceException if any errors occur while executing the request or handling the
+   *                              body
+   */
+  public <B> HttpBodyResponse<B> patch(final String url, final Map<String, String> headers,
+      final Map<String, String> parameters, final String body, final BodyHandler<B> handler)
+      throws HttpServiceException {
+    Args.notNull(handler, "handler");
+    return doRequest(HttpPatchCallable.class, url, headers, parameters, toBody(body),
+        callable -> () -> callable.call(handler));
+  }
+
+  /**
+   * Performs an HTTP PATCH request to the given url using the specified headers, parameters, and
+   * body. The body is written to the connection as the request is sent, so streamed bodies are
+   * never held in memory. If the request is successful an {@link HttpResponse} is returned.
+   *
+   * @param url        the url to send the request
+   * @param headers    the map of headers for the request
+   * @param parameters the map of parameters to send
+   * @param body       the request body
+   *
+   * @return the HttpResponse
+   *
+   * @throws HttpServiceException if any errors occur while executing the request or sending the
+   *                              body
+   */
+  public HttpResponse patchBody(final String url, final Map<String, String> headers,
+      final Map<String, String> parameters, final RequestBody body) throws HttpServiceException {
+    Args.notNull(body, "body");
     return doRequest(HttpPatchCallable.class, url, headers, parameters, body);
   }
 
+  /**
+   * Performs an HTTP PATCH request to the given url using the specified headers, parameters, and
+   * body, converting the response body with the given handler as it is read. If the request is
+   * successful an {@link HttpBodyResponse} is returned.
+   *
+   * @param url        the url to send the request
+   * @param headers    the map of headers for the request
+   * @param parameters the map of parameters to send
+   * @param body       the request body
+   * @param handler    the response body handler
+   * @param <B>        the type of the handled body
+   *
+   * @return the HttpBodyResponse
+   *
+   * @throws HttpServiceException if any errors occur while executing the request, sending the
+   *                              body or handling the response body
+   */
+  public <B> HttpBodyResponse<B> patchBody(final String url, final Map<String, String> headers,
+      final Map<String, String> parameters, final RequestBody body, final BodyHandler<B> handler)
+      throws HttpServiceException {
+    Args.notNull(body, "body");
+    Args.notNull(handler, "handler");
+    return doRequest(HttpPatchCallable.class, url, headers, parameters, body,
+        callable -> () -> callable.call(handler));
+  }
+
+  /**
+   * Performs a request described by the given template, binding the given values to its parameter
+   * slots. If the request is successful an {@link HttpResponse} is returned.
+   *
+   * @param template the request template
+   * @param values   the values of the template's slots, in order; null values are left out
+   *
+   * @return the HttpResponse
+   *
+   * @throws HttpServiceException     if any errors occur while executing the request
+   * @throws IllegalArgumentException if the number of values does not match the slots
+   */
+  public HttpResponse execute(final RequestTemplate template, final String... values)
+      throws HttpServiceException {
+    return execute(template, null, values);
+  }
+
+  /**
+   * Performs a request described by the given template with the given body, binding the given
+   * values to its parameter slots. If the request is successful an {@link HttpResponse} is
+   * returned.
+   *
+   * @param template the request template
+   * @param body     the request body, may be null
+   * @param values   the values of the template's slots, in order; null values are left out
+   *
+   * @return the HttpResponse
+   *
+   * @throws HttpServiceException     if any errors occur while executing the request
+   * @throws IllegalArgumentException if the number of values does not match the slots
+   */
+  public HttpResponse execute(final RequestTemplate template, final RequestBody body,
+      final String... values) throws HttpServiceException {
+    Args.notNull(template, "template");
+    Args.notNull(values, "values");
+    Args.check(values.length == template.getSlots().size(),
+        "expected %s slot values but got %s", template.getSlots().size(), values.length);
+
+    return doRequest(template.getUrl(), target -> {
+      final HttpTemplateCallable callable = new HttpTemplateCallable(template, target, values);
+      callable.setConfig(config);
+      callable.setMetrics(metrics);
+      if (body != null) {
+        callable.setBody(body);
+      }
+      return callable;
+    }, callable -> callable);
+  }
+
   /**
    * Executes the given {@link AbstractHttpCallable} class using reflection.
+   * <p>
+   * If the host of the url is the name of a registered {@link EndpointGroup}, the request is sent to
+   * one of the group's endpoints instead.
    *
    * @param clazz      the class of the AbstractHttpCallable implementation
    * @param url        the url to send the request
@@ -182,9 +893,258 @@ public final class HttpService {
   private <T extends AbstractHttpCallable> HttpResponse doRequest(
       final Class<T> clazz, final String url,
       final Map<String, String> headers,
-      final Map<String, String> parameters, final String body) throws HttpServiceException {
-    final T callable = getHttpCallable(clazz, url, headers, parameters, body);
-    return execute(callable);
+      final Map<String, String> parameters, final RequestBody body) throws HttpServiceException {
+    return doRequest(clazz, url, headers, parameters, body, callable -> callable);
+  }
+
+  /**
+   * Executes the given {@link AbstractHttpCallable} class using reflection, producing the response
+   * with the task returned by the given function.
+   * <p>
+   * If the host of the url is the name of a registered {@link EndpointGroup}, the request is sent to
+   * one of the group's endpoints instead.
+   *
+   * @param clazz      the class of the AbstractHttpCallable implementation
+   * @param url        the url to send the request
+   * @param headers    the map of headers for the request
+   * @param parameters the map of parameters to send
+   * @param body       the request body, may be null
+   * @param task       the function returning the task that executes the callable
+   *
+   * @return the response
+   *
+   * @throws HttpServiceException if any errors occur while executing the request
+   */
+  private <T extends AbstractHttpCallable, R extends AbstractHttpResponse> R doRequest(
+      final Class<T> clazz, final String url,
+      final Map<String, String> headers,
+      final Map<String, String> parameters, final RequestBody body,
+      final Function<T, Callable<R>> task) throws HttpServiceException {
+    return doRequest(url, target -> getHttpCallable(clazz, target, headers, parameters, body),
+        task);
+  }
+
+  /**
+   * Executes the callable created by the given factory for the given url, producing the response
+   * with the task returned by the given function.
+   * <p>
+   * If the host of the url is the name of a registered {@link EndpointGroup}, the callable is
+   * created for the url of one of the group's endpoints instead.
+   *
+   * @param url     the url to send the request
+   * @param factory the factory creating the callable for the url to send the request to
+   * @param task    the function returning the task that executes the callable
+   *
+   * @return the response
+   *
+   * @throws HttpServiceException if any errors occur while executing the request
+   */
+  private <T extends AbstractHttpCallable, R extends AbstractHttpResponse> R doRequest(
+      final String url, final CallableFactory<T> factory,
+      final Function<T, Callable<R>> task) throws HttpServiceException {
+    final URI uri = endpointGroups.isEmpty() ? null : toUri(url);
+    final EndpointGroup group = uri == null || uri.getHost() == null ? null
+        : endpointGroups.get(uri.getHost().toLowerCase(Locale.ROOT));
+
+    if (group == null) {
+      final T callable = factory.create(url);
+      return execute(callable, task.apply(callable));
+    }
+
+    final Endpoint endpoint = group.select();
+    final T callable = factory.create(group.resolve(endpoint, uri));
+    final long start = System.nanoTime();
+    endpoint.onRequestStart();
+
+    try {
+      final R resp = execute(callable, task.apply(callable));
+      group.onResponse(endpoint, resp.getStatusCode(), System.nanoTime() - start);
+      return resp;
+    } catch (final HttpServiceException e) {
+      group.onFailure(endpoint, System.nanoTime() - start);
+      throw e;
+    }
+  }
+
+  /**
+   * Returns the length of the content described by the given HEAD response if it can be fetched
+   * in byte ranges, that is, if it was found, is not encoded, and the server accepts byte ranges.
+   *
+   * @param head the HEAD response
+   *
+   * @return the content length, or -1 if the content cannot be fetched in ranges
+   */
+  private long getRangedLength(final HttpResponse head) {
+    final String length = head.getHeader(HttpHeaders.CONTENT_LENGTH);
+
+    if (head.getStatusCode() != HttpStatus.SC_OK || length == null
+        || head.getHeader(HttpHeaders.CONTENT_ENCODING) != null
+        || !"bytes".equalsIgnoreCase(head.getHeader(HttpHeaders.ACCEPT_RANGES))) {
+      return -1;
+    }
+
+    try {
+      final long result = Long.parseLong(length.trim());
+      return result <= config.getMaxBodySize() ? result : -1;
+    } catch (final NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Returns a copy of the given headers requesting the content without any encoding, as byte
+   * ranges are offsets into the unencoded content. Any range headers are removed.
+   *
+   * @param headers the map of headers, may be null
+   *
+   * @return the map of headers
+   */
+  private static Map<String, String> getIdentityHeaders(final Map<String, String> headers) {
+    final Map<String, String> identity = new HashMap<>();
+
+    if (headers != null) {
+      headers.forEach((name, value) -> {
+        if (!HttpHeaders.ACCEPT_ENCODING.equalsIgnoreCase(name)
+            && !HttpHeaders.RANGE.equalsIgnoreCase(name)
+            && !HttpHeaders.IF_RANGE.equalsIgnoreCase(name)) {
+          identity.put(name, value);
+        }
+      });
+    }
+
+    identity.put(HttpHeaders.ACCEPT_ENCODING, "identity");
+    return identity;
+  }
+
+  /**
+   * Deletes the given file, logging any failure.
+   *
+   * @param file the file
+   */
+  private static void deleteQuietly(final Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (final IOException e) {
+      LOGGER.warn("unable to delete {}", file, e);
+    }
+  }
+
+  /**
+   * Probes every endpoint of the given group concurrently with a HEAD request to its health check
+   * path, waiting for all probes to complete. Any response with a status code below 400 is
+   * considered healthy. Each probe times out after the health check interval, so that an endpoint
+   * that does not answer is considered unhealthy without delaying the others.
+   *
+   * @param group the endpoint group
+   */
+  private void checkHealth(final EndpointGroup group) {
+    final URI path = URI.create(group.getHealthCheckPath());
+    final ExecutorService probes = getHealthCheckProbes();
+    final List<Future<?>> futures = new ArrayList<>();
+
+    for (final Endpoint endpoint : group.getEndpoints()) {
+      futures.add(probes.submit(() -> group.onHealthCheck(endpoint,
+          probe(group.resolve(endpoint, path), group.getHealthCheckInterval()))));
+    }
+
+    for (final Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (final InterruptedException e) {
+        futures.forEach(other -> other.cancel(true));
+        Thread.currentThread().interrupt();
+        return;
+      } catch (final ExecutionException e) {
+        LOGGER.warn("health check of group {} failed", group.getName(), e.getCause());
+      }
+    }
+  }
+
+  /**
+   * Sends a health check HEAD request to the given url.
+   *
+   * @param url     the health check url of an endpoint
+   * @param timeout the connect and response timeout
+   *
+   * @return <code>true</code> if the endpoint answered with a status code below 400
+   */
+  private boolean probe(final String url, final Duration timeout) {
+    final Map<String, String> empty = Collections.emptyMap();
+
+    try {
+      final HttpHeadCallable callable = getHttpCallable(HttpHeadCallable.class, url, empty, empty,
+          null);
+      callable.setTimeout(timeout);
+      return execute(callable).getStatusCode() < 400;
+    } catch (final HttpServiceException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Cancels the active health check of the endpoint group with the given name, if any.
+   *
+   * @param name the logical service name
+   */
+  private void cancelHealthCheck(final String name) {
+    final ScheduledFuture<?> healthCheck = healthChecks.remove(name);
+
+    if (healthCheck != null) {
+      healthCheck.cancel(false);
+    }
+  }
+
+  /**
+   * Returns the scheduler used for active health checks, creating it if necessary.
+   *
+   * @return the health check scheduler
+   */
+  private synchronized ScheduledExecutorService getHealthCheckScheduler() {
+    if (healthCheckScheduler == null) {
+      healthCheckScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        final Thread thread = new Thread(r, "http-health-check");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+
+    return healthCheckScheduler;
+  }
+
+  /**
+   * Returns the executor running health check probes, creating it if necessary.
+   *
+   * @return the health check probe executor
+   */
+  private synchronized ExecutorService getHealthCheckProbes() {
+    if (healthCheckProbes == null) {
+      healthCheckProbes = Executors.newCachedThreadPool(r -> {
+        final Thread thread = new Thread(r, "http-health-check-probe");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+
+    return healthCheckProbes;
+  }
+
+  /**
+   * Parses the given url, returning null if it is not a valid uri.
+   *
+   * @param url the url to parse
+   *
+   * @return the parsed URI, or null
+   */
+  private URI toUri(final String url) {
+    if (url == null) {
+      return null;
+    }
+
+    try {
+      return new URI(url);
+    } catch (final URISyntaxException e) {
+      return null;
+    }
   }
 
   /**
@@ -198,15 +1158,48 @@ public final class HttpService {
    */
   private HttpResponse execute(final AbstractHttpCallable callable)
       throws HttpServiceException {
+    return execute(callable, callable);
+  }
+
+  /**
+   * Submits the given task executing an {@link AbstractHttpCallable}, returning the result.
+   * <p>
+   * If the calling thread is interrupted while waiting, the request is cancelled and its connection
+   * shut down, so that an abandoned request does not keep transferring data.
+   *
+   * @param callable the AbstractHttpCallable to execute
+   * @param task     the task executing the callable
+   *
+   * @return the response
+   *
+   * @throws HttpServiceException if any errors occur while executing the request
+   */
+  private <R> R execute(final AbstractHttpCallable callable, final Callable<R> task)
+      throws HttpServiceException {
     final ExecutorService executor = Executors.newSingleThreadExecutor();
-    final Future<HttpResponse> future = executor.submit(callable);
+    final FutureTask<R> future = new FutureTask<>(task) {
+      @Override
+      public boolean cancel(final boolean mayInterruptIfRunning) {
+        // interrupting the worker does not abort a blocking socket read
+        callable.cancel();
+        return super.cancel(mayInterruptIfRunning);
+      }
+    };
+    executor.execute(future);
     executor.shutdown();
 
-    HttpResponse resp;
+    R resp;
 
     try {
       resp = future.get();
-    } catch (InterruptedException | ExecutionException e) {
+    } catch (final InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+
+      // a deliberate interruption, not a failure of the request
+      LOGGER.info("http request cancelled: calling thread interrupted");
+      throw new HttpServiceException("http request cancelled: calling thread interrupted", e);
+    } catch (final ExecutionException e) {
       final StringBuilder sb = new StringBuilder(
           "unable to execute http request");
       final Throwable t = e.getCause();
@@ -222,6 +1215,18 @@ public final class HttpService {
     return resp;
   }
 
+  /**
+   * Returns the body of a request given as a string. A blank string means no body, so that the
+   * parameters of the request are sent instead.
+   *
+   * @param body the request body, may be null
+   *
+   * @return the request body, or null if the string is blank
+   */
+  private static RequestBody toBody(final String body) {
+    return TextUtils.isBlank(body) ? null : RequestBody.of(body);
+  }
+
   /**
    * Uses reflection to instantiate the appropriate {@link AbstractHttpCallable} using the given
    * class and constructor arguments.
@@ -238,17 +1243,21 @@ public final class HttpService {
   private <T extends AbstractHttpCallable> T getHttpCallable(
       final Class<T> clazz, final String url,
       final Map<String, String> headers,
-      final Map<String, String> parameters, final String body) throws HttpServiceException {
+      final Map<String, String> parameters, final RequestBody body) throws HttpServiceException {
     try {
-      if (body == null) {
-        final Constructor<T> constructor = clazz
-            .getConstructor(String.class, Map.class, Map.class);
-        return constructor.newInstance(url, headers, parameters);
-      } else {
-        final Constructor<T> constructor = clazz
-            .getConstructor(String.class, Map.class, Map.class, String.class);
-        return constructor.newInstance(url, headers, parameters, body);
+      final T callable;
+
+      final Constructor<T> constructor = clazz
+          .getConstructor(String.class, Map.class, Map.class);
+      callable = constructor.newInstance(url, headers, parameters);
+
+      if (body != null) {
+        callable.setBody(body);
       }
+
+      callable.setConfig(config);
+      callable.setMetrics(metrics);
+      return callable;
     } catch (NoSuchMethodException | SecurityException
         | InstantiationException | IllegalAccessException
         | IllegalArgumentException | InvocationTargetException e) {
@@ -257,4 +1266,15 @@ public final class HttpService {
           clazz.getName(), e), e);
     }
   }
+
+  /**
+   * Creates the callable sending a request to a given url.
+   *
+   * @param <T> the type of the callable
+   */
+  @FunctionalInterface
+  private interface CallableFactory<T extends AbstractHttpCallable> {
+
+    T create(String url) throws HttpServiceException;
+  }
 }
@@ -0,0 +1,223 @@
+package com.akm.http;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import org.apache.hc.core5.util.Args;
+
+/**
+ * Configuration of an {@link HttpService}.
+ * <p>
+ * Settings are read when each request is executed, so they should be set before the service is
+ * used.
+ *
+ * @author Amir
+ * @see HttpService
+ * @since 1.1
+ */
+public final class HttpServiceConfig {
+
+  /**
+   * The default maximum size of a response body kept in memory, 8 MiB.
+   */
+  public static final long DEFAULT_MAX_IN_MEMORY_BODY_SIZE = 8L * 1024 * 1024;
+
+  /**
+   * The default minimum size of a request body to compress, 1 KiB.
+   */
+  public static final long DEFAULT_REQUEST_COMPRESSION_THRESHOLD = 1024;
+
+  /**
+   * The default time to wait for the server to accept a request body, 1 second.
+   */
+  public static final Duration DEFAULT_EXPECT_CONTINUE_TIMEOUT = Duration.ofSeconds(1);
+
+  private long maxInMemoryBodySize = DEFAULT_MAX_IN_MEMORY_BODY_SIZE;
+  private long maxBodySize = Long.MAX_VALUE;
+  private Path tempDirectory;
+  private boolean compressionEnabled = true;
+  private String requestCompression;
+  private long requestCompressionThreshold = DEFAULT_REQUEST_COMPRESSION_THRESHOLD;
+  private long expectContinueThreshold = -1;
+  private Duration expectContinueTimeout = DEFAULT_EXPECT_CONTINUE_TIMEOUT;
+
+  /**
+   * Returns the maximum size in bytes of a response body kept in memory. Larger bodies are written
+   * to a temporary file instead. The default is {@link #DEFAULT_MAX_IN_MEMORY_BODY_SIZE}.
+   *
+   * @return the maximum in-memory body size
+   */
+  public long getMaxInMemoryBodySize() {
+    return maxInMemoryBodySize;
+  }
+
+  /**
+   * Sets the maximum size in bytes of a response body kept in memory.
+   *
+   * @param maxInMemoryBodySize the maximum in-memory body size, at most
+   *                            {@link Integer#MAX_VALUE} - 8
+   */
+  public void setMaxInMemoryBodySize(final long maxInMemoryBodySize) {
+    Args.checkRange(maxInMemoryBodySize, 0, Integer.MAX_VALUE - 8,
+        "max in-memory body size");
+    this.maxInMemoryBodySize = maxInMemoryBodySize;
+  }
+
+  /**
+   * Returns the maximum size in bytes of a response body. A request whose response body exceeds
+   * this size is aborted with an
+   * {@link com.akm.http.exception.HttpResponseTooLargeException}. By default there is no limit.
+   *
+   * @return the maximum body size
+   */
+  public long getMaxBodySize() {
+    return maxBodySize;
+  }
+
+  /**
+   * Sets the maximum size in bytes of a response body.
+   *
+   * @param maxBodySize the maximum body size
+   */
+  public void setMaxBodySize(final long maxBodySize) {
+    this.maxBodySize = Args.notNegative(maxBodySize, "max body size");
+  }
+
+  /**
+   * Returns the directory in which temporary files holding large response bodies are created, or
+   * null to use the default temporary-file directory. This is the default.
+   *
+   * @return the temporary directory
+   */
+  public Path getTempDirectory() {
+    return tempDirectory;
+  }
+
+  /**
+   * Sets the directory in which temporary files holding large response bodies are created.
+   *
+   * @param tempDirectory the temporary directory, or null to use the default temporary-file
+   *                      directory
+   */
+  public void setTempDirectory(final Path tempDirectory) {
+    this.tempDirectory = tempDirectory;
+  }
+
+  /**
+   * Returns whether responses are requested compressed. When enabled, requests that do not set an
+   * <code>Accept-Encoding</code> header advertise <code>gzip, deflate</code>, and gzip or deflate
+   * encoded response bodies are decompressed as they are read. This is the default.
+   *
+   * @return <code>true</code> if compression is enabled, <code>false</code> otherwise
+   */
+  public boolean isCompressionEnabled() {
+    return compressionEnabled;
+  }
+
+  /**
+   * Sets whether responses are requested compressed. When disabled, no
+   * <code>Accept-Encoding</code> header is added and response bodies are returned as received.
+   *
+   * @param compressionEnabled whether compression is enabled
+   */
+  public void setCompressionEnabled(final boolean compressionEnabled) {
+    this.compressionEnabled = compressionEnabled;
+  }
+
+  /**
+   * Returns the content encoding applied to request bodies, either <code>gzip</code> or
+   * <code>deflate</code>, or null if request bodies are sent as they are. This is the default, as
+   * the server must support the encoding.
+   *
+   * @return the request content encoding
+   */
+  public String getRequestCompression() {
+    return requestCompression;
+  }
+
+  /**
+   * Sets the content encoding applied to request bodies. When set, bodies of at least
+   * {@link #getRequestCompressionThreshold()} bytes, or of unknown length, are compressed as they
+   * are sent, with chunked transfer encoding and a matching <code>Content-Encoding</code> header.
+   * Bodies that already have a content encoding, or requests that set a
+   * <code>Content-Encoding</code> header, are left unchanged.
+   *
+   * @param requestCompression <code>gzip</code>, <code>deflate</code>, or null to send request
+   *                           bodies as they are
+   */
+  public void setRequestCompression(final String requestCompression) {
+    Args.check(requestCompression == null || "gzip".equals(requestCompression)
+        || "deflate".equals(requestCompression), "request compression must be gzip or deflate");
+    this.requestCompression = requestCompression;
+  }
+
+  /**
+   * Returns the minimum size in bytes of a request body to compress. Smaller bodies gain little
+   * and are sent as they are. The default is {@link #DEFAULT_REQUEST_COMPRESSION_THRESHOLD}.
+   *
+   * @return the request compression threshold
+   */
+  public long getRequestCompressionThreshold() {
+    return requestCompressionThreshold;
+  }
+
+  /**
+   * Sets the minimum size in bytes of a request body to compress.
+   *
+   * @param requestCompressionThreshold the request compression threshold
+   */
+  public void setRequestCompressionThreshold(final long requestCompressionThreshold) {
+    this.requestCompressionThreshold = Args.notNegative(requestCompressionThreshold,
+        "request compression threshold");
+  }
+
+  /**
+   * Returns the minimum size in bytes of a request body sent with an
+   * <code>Expect: 100-continue</code> header, or -1 if the header is never sent. This is the
+   * default, as a server that does not support the handshake delays every such request by
+   * {@link #getExpectContinueTimeout()}.
+   *
+   * @return the expect-continue threshold
+   */
+  public long getExpectContinueThreshold() {
+    return expectContinueThreshold;
+  }
+
+  /**
+   * Sets the minimum size in bytes of a request body sent with an
+   * <code>Expect: 100-continue</code> header. Such a request is sent without its body, which is
+   * only sent once the server has answered <code>100 Continue</code>, or if it has not answered
+   * within {@link #getExpectContinueTimeout()}. If the server answers with a final status instead,
+   * such as <code>401</code> or <code>413</code>, the body is never sent. Bodies of unknown length
+   * are always above the threshold.
+   *
+   * @param expectContinueThreshold the expect-continue threshold, or -1 to never send the header
+   */
+  public void setExpectContinueThreshold(final long expectContinueThreshold) {
+    Args.check(expectContinueThreshold >= -1, "expect-continue threshold must be -1 or positive");
+    this.expectContinueThreshold = expectContinueThreshold;
+  }
+
+  /**
+   * Returns how long to wait for the server to answer a request sent with an
+   * <code>Expect: 100-continue</code> header before sending its body anyway. The default is
+   * {@link #DEFAULT_EXPECT_CONTINUE_TIMEOUT}.
+   *
+   * @return the expect-continue timeout
+   */
+  public Duration getExpectContinueTimeout() {
+    return expectContinueTimeout;
+  }
+
+  /**
+   * Sets how long to wait for the server to answer a request sent with an
+   * <code>Expect: 100-continue</code> header before sending its body anyway.
+   *
+   * @param expectContinueTimeout the expect-continue timeout
+   */
+  public void setExpectContinueTimeout(final Duration expectContinueTimeout) {
+    Args.notNull(expectContinueTimeout, "expect-continue timeout");
+    Args.check(!expectContinueTimeout.isNegative() && !expectContinueTimeout.isZero(),
+        "expect-continue timeout must be positive");
+    this.expectContinueTimeout = expectContinueTimeout;
+  }
+}
@@ -0,0 +1,152 @@
+package com.akm.http;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Transfer metrics of an {@link HttpService}.
+ * <p>
+ * Counters are cumulative over the lifetime of the service and safe to read while requests are in
+ * flight.
+ *
+ * @author Amir
+ * @see HttpService#getMetrics()
+ * @since 1.1
+ */
+public final class HttpServiceMetrics {
+
+  private final LongAdder compressedResponses = new LongAdder();
+  private final LongAdder compressedResponseBytes = new LongAdder();
+  private final LongAdder decompressedResponseBytes = new LongAdder();
+  private final LongAdder compressedRequests = new LongAdder();
+  private final LongAdder uncompressedRequestBytes = new LongAdder();
+  private final LongAdder compressedRequestBytes = new LongAdder();
+  private final LongAdder requestCompressionNanos = new LongAdder();
+
+  /**
+   * Returns the number of responses received with a gzip or deflate content encoding.
+   *
+   * @return the number of compressed responses
+   */
+  public long getCompressedResponseCount() {
+    return compressedResponses.sum();
+  }
+
+  /**
+   * Returns the number of compressed body bytes read from the connection for compressed responses.
+   *
+   * @return the number of compressed bytes
+   */
+  public long getCompressedResponseBytes() {
+    return compressedResponseBytes.sum();
+  }
+
+  /**
+   * Returns the number of body bytes produced by decompressing compressed responses.
+   *
+   * @return the number of decompressed bytes
+   */
+  public long getDecompressedResponseBytes() {
+    return decompressedResponseBytes.sum();
+  }
+
+  /**
+   * Returns the ratio of decompressed to compressed bytes over all compressed responses, e.g.
+   * <code>4.0</code> if responses were a quarter of their decompressed size on the wire.
+   *
+   * @return the compression ratio, or 0 if no compressed bytes were read
+   */
+  public double getResponseCompressionRatio() {
+    final long compressed = getCompressedResponseBytes();
+    return compressed > 0 ? (double) getDecompressedResponseBytes() / compressed : 0;
+  }
+
+  /**
+   * Returns the number of request bodies sent compressed.
+   *
+   * @return the number of compressed requests
+   */
+  public long getCompressedRequestCount() {
+    return compressedRequests.sum();
+  }
+
+  /**
+   * Returns the number of body bytes of compressed requests before compression.
+   *
+   * @return the number of uncompressed bytes
+   */
+  public long getUncompressedRequestBytes() {
+    return uncompressedRequestBytes.sum();
+  }
+
+  /**
+   * Returns the number of compressed body bytes written to the connection for compressed
+   * requests.
+   *
+   * @return the number of compressed bytes
+   */
+  public long getCompressedRequestBytes() {
+    return compressedRequestBytes.sum();
+  }
+
+  /**
+   * Returns the ratio of uncompressed to compressed bytes over all compressed requests.
+   *
+   * @return the compression ratio, or 0 if no compressed bytes were written
+   */
+  public double getRequestCompressionRatio() {
+    final long compressed = getCompressedRequestBytes();
+    return compressed > 0 ? (double) getUncompressedRequestBytes() / compressed : 0;
+  }
+
+  /**
+   * Returns the CPU time spent by request threads writing compressed request bodies, which is
+   * dominated by compression. Zero if the JVM does not measure thread CPU time.
+   *
+   * @return the request compression CPU time
+   */
+  public Duration getRequestCompressionCpuTime() {
+    return Duration.ofNanos(requestCompressionNanos.sum());
+  }
+
+  void recordCompressedResponse() {
+    compressedResponses.increment();
+  }
+
+  void addCompressedResponseBytes(final long bytes) {
+    compressedResponseBytes.add(bytes);
+  }
+
+  void addDecompressedResponseBytes(final long bytes) {
+    decompressedResponseBytes.add(bytes);
+  }
+
+  void recordCompressedRequest() {
+    compressedRequests.increment();
+  }
+
+  void addUncompressedRequestBytes(final long bytes) {
+    uncompressedRequestBytes.add(bytes);
+  }
+
+  void addCompressedRequestBytes(final long bytes) {
+    compressedRequestBytes.add(bytes);
+  }
+
+  void addRequestCompressionNanos(final long nanos) {
+    requestCompressionNanos.add(nanos);
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "HttpServiceMetrics [compressedResponses=%d, compressedResponseBytes=%d, "
+            + "decompressedResponseBytes=%d, compressedRequests=%d, "
+            + "uncompressedRequestBytes=%d, compressedRequestBytes=%d, "
+            + "requestCompressionCpuTime=%s]",
+        getCompressedResponseCount(), getCompressedResponseBytes(),
+        getDecompressedResponseBytes(), getCompressedRequestCount(),
+        getUncompressedRequestBytes(), getCompressedRequestBytes(),
+        getRequestCompressionCpuTime());
+  }
+}
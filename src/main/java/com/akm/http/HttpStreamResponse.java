@@ -0,0 +1,143 @@
+package com.akm.http;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.message.StatusLine;
+
+/**
+ * This class represents an HTTP response whose body is read directly from the connection.
+ * <p>
+ * Unlike {@link HttpResponse}, the body is never buffered: it is exposed as an {@link InputStream}
+ * or a {@link ReadableByteChannel} that reads from the underlying connection as data arrives. The
+ * connection stays open until the response, its stream, or its channel is closed, so instances
+ * must always be closed, preferably with a try-with-resources statement:
+ *
+ * <pre>
+ * try (HttpStreamResponse resp = http.stream(url, headers, parameters)) {
+ *   Files.copy(resp.getInputStream(), target);
+ * }
+ * </pre>
+ *
+ * @author Amir
+ * @see HttpService#stream(String, java.util.Map, java.util.Map)
+ * @since 1.1
+ */
+public final class HttpStreamResponse extends AbstractHttpResponse implements Closeable {
+
+  private final InputStream content;
+  private final Closeable connection;
+  private ReadableByteChannel channel;
+  private boolean closed;
+
+  HttpStreamResponse(final Header[] headers, final StatusLine statusLine,
+      final InputStream content, final Closeable connection) {
+    super(headers, statusLine);
+
+    this.content = new FilterInputStream(
+        content != null ? content : InputStream.nullInputStream()) {
+      @Override
+      public void close() throws IOException {
+        HttpStreamResponse.this.close();
+      }
+    };
+    this.connection = connection;
+  }
+
+  /**
+   * Returns the response body as a stream. Closing the stream closes this response.
+   *
+   * @return the response body stream
+   */
+  public InputStream getInputStream() {
+    return content;
+  }
+
+  /**
+   * Returns the response body as a channel. Closing the channel closes this response.
+   *
+   * @return the response body channel
+   */
+  public synchronized ReadableByteChannel getChannel() {
+    if (channel == null) {
+      channel = Channels.newChannel(content);
+    }
+
+    return channel;
+  }
+
+  /**
+   * Returns the lines of the response body as a lazily populated stream, for line-delimited
+   * formats such as NDJSON. Lines are read from the connection only as the stream is consumed, one
+   * at a time, and decoded with the charset of the response content type, UTF-8 by default. A line
+   * ends with a line feed, optionally preceded by a carriage return.
+   * <p>
+   * Closing the stream closes this response, so the stream must always be closed unless it is
+   * consumed to its end. Errors reading the body are thrown as {@link UncheckedIOException}:
+   *
+   * <pre>
+   * try (Stream&lt;String&gt; records = http.stream(url, headers, parameters).lines()) {
+   *   records.map(Record::parse).forEach(store::add);
+   * }
+   * </pre>
+   *
+   * @return the stream of lines
+   */
+  public Stream<String> lines() {
+    try {
+      final Charset charset = HttpResponse.parseCharset(getHeader(HttpHeaders.CONTENT_TYPE));
+
+      if (!LineIterator.supports(charset)) {
+        return new BufferedReader(new InputStreamReader(content, charset)).lines()
+            .onClose(this::closeUnchecked);
+      }
+
+      final LineIterator iterator = new LineIterator(content, charset);
+      return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+          Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(iterator::close);
+    } catch (final RuntimeException e) {
+      // the caller never gets a stream to close
+      try {
+        close();
+      } catch (final IOException suppressed) {
+        e.addSuppressed(suppressed);
+      }
+      throw e;
+    }
+  }
+
+  private void closeUnchecked() {
+    try {
+      close();
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Closes this response and releases its connection. Any unread part of the body is discarded
+   * without being transferred.
+   *
+   * @throws IOException if an error occurs while closing the connection
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (!closed) {
+      closed = true;
+      connection.close();
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package com.akm.http;
+
+import java.io.IOException;
+import java.net.URI;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+
+/**
+ * Use this class to send requests described by a {@link RequestTemplate}.
+ * <p>
+ * The request is built from the parts precompiled by the template: its parsed uri, its formatted
+ * headers, and its path, to which only the bound slot values are appended.
+ *
+ * @author Amir
+ * @see AbstractHttpCallable
+ * @see RequestTemplate
+ * @since 1.1
+ */
+final class HttpTemplateCallable extends AbstractHttpCallable {
+
+  private final RequestTemplate template;
+  private final URI uri;
+  private final String path;
+
+  /**
+   * Creates a callable sending a request of the given template to the given url.
+   *
+   * @param template the template
+   * @param url      the url, either the url of the template or a url resolved from it
+   * @param values   the slot values
+   */
+  HttpTemplateCallable(final RequestTemplate template, final String url, final String[] values) {
+    super(url, null, null, null, template.getMethod());
+    this.template = template;
+
+    if (url.equals(template.getUrl())) {
+      uri = template.getUri();
+      path = template.path(values);
+    } else {
+      uri = URI.create(url);
+      path = template.path(uri, values);
+    }
+  }
+
+  @Override
+  public CloseableHttpResponse execute(final CloseableHttpClient client) throws IOException {
+    return execute(client, newRequest());
+  }
+
+  /**
+   * Returns the request to send.
+   *
+   * @return the request
+   */
+  HttpUriRequestBase newRequest() {
+    final HttpUriRequestBase request = new HttpUriRequestBase(template.getMethod(), uri);
+    request.setPath(path);
+    request.setHeaders(template.getHeaders());
+
+    if (getBody() != null) {
+      request.setEntity(getBody().getEntity());
+    }
+
+    return request;
+  }
+}
@@ -29,6 +29,6 @@ final class HttpTraceCallable extends AbstractHttpCallable {
     addHeaders(trace);
     addRequestParameters(trace);
 
-    return client.execute(trace);
+    return execute(client, trace);
   }
 }
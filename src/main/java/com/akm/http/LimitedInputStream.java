@@ -0,0 +1,67 @@
+package com.akm.http;
+
+import com.akm.http.exception.HttpResponseTooLargeException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Internal stream that fails once more than a given number of bytes have been read.
+ *
+ * @author Amir
+ * @see HttpServiceConfig#getMaxBodySize()
+ * @since 1.1
+ */
+final class LimitedInputStream extends FilterInputStream {
+
+  private final long limit;
+  private long count;
+
+  /**
+   * Creates a stream allowing at most the given number of bytes to be read.
+   *
+   * @param in    the stream to wrap
+   * @param limit the maximum number of bytes
+   */
+  LimitedInputStream(final InputStream in, final long limit) {
+    super(in);
+    this.limit = limit;
+  }
+
+  @Override
+  public int read() throws IOException {
+    final int b = in.read();
+    if (b != -1) {
+      count(1);
+    }
+    return b;
+  }
+
+  @Override
+  public int read(final byte[] b, final int off, final int len) throws IOException {
+    final int read = in.read(b, off, len);
+    if (read > 0) {
+      count(read);
+    }
+    return read;
+  }
+
+  @Override
+  public long skip(final long n) throws IOException {
+    final long skipped = in.skip(n);
+    if (skipped > 0) {
+      count(skipped);
+    }
+    return skipped;
+  }
+
+  @Override
+  public boolean markSupported() {
+    return false;
+  }
+
+  private void count(final long read) throws HttpResponseTooLargeException {
+    count += read;
+    ResponseBody.checkSize(count, limit);
+  }
+}
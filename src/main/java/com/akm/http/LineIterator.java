@@ -0,0 +1,173 @@
+package com.akm.http;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Internal iterator over the lines of a byte stream.
+ * <p>
+ * The stream is read into a pooled buffer and split on line feeds directly in the bytes, so each
+ * line is decoded exactly once into its resulting string and nothing else is allocated per line. A
+ * line spanning more than one buffer is assembled in a second buffer that is kept and reused for
+ * later long lines. A line feed may end with a carriage return, which is dropped.
+ * <p>
+ * Splitting on bytes requires that a line feed is always encoded as the single byte
+ * <code>0x0A</code> and never appears within another character, which holds for UTF-8 and all
+ * single byte charsets; see {@link #supports(Charset)}.
+ *
+ * @author Amir
+ * @see HttpStreamResponse#lines()
+ * @since 1.1
+ */
+final class LineIterator implements Iterator<String>, Closeable {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final InputStream in;
+  private final Charset charset;
+  private byte[] buffer;
+  private int position;
+  private int limit;
+  private byte[] line = new byte[0];
+  private int lineLength;
+  private String next;
+  private boolean eof;
+
+  /**
+   * Creates an iterator over the lines of the given stream. The stream is closed once its end is
+   * reached or the iterator is closed.
+   *
+   * @param in      the stream
+   * @param charset the charset of the stream, which must be supported
+   */
+  LineIterator(final InputStream in, final Charset charset) {
+    this.in = in;
+    this.charset = charset;
+    this.buffer = BufferPool.HEAP.acquire(BUFFER_SIZE);
+  }
+
+  /**
+   * Returns whether lines encoded in the given charset can be split on bytes.
+   *
+   * @param charset the charset
+   *
+   * @return <code>true</code> if the charset is supported, <code>false</code> otherwise
+   */
+  static boolean supports(final Charset charset) {
+    // a decode-only charset has no encoder to ask
+    return StandardCharsets.UTF_8.equals(charset) || charset.canEncode()
+        && charset.newEncoder().maxBytesPerChar() == 1
+        && Arrays.equals(new byte[] {'\n'}, "\n".getBytes(charset));
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (next == null && !eof) {
+      try {
+        next = readLine();
+      } catch (final IOException e) {
+        close();
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    return next != null;
+  }
+
+  @Override
+  public String next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+
+    final String result = next;
+    next = null;
+    return result;
+  }
+
+  /**
+   * Reads the next line.
+   *
+   * @return the line, or null at the end of the stream
+   *
+   * @throws IOException if the stream could not be read
+   */
+  private String readLine() throws IOException {
+    lineLength = 0;
+
+    while (true) {
+      for (int i = position; i < limit; i++) {
+        if (buffer[i] == '\n') {
+          final String result;
+          if (lineLength == 0) {
+            result = decode(buffer, position, i);
+          } else {
+            append(position, i);
+            result = decode(line, 0, lineLength);
+          }
+          position = i + 1;
+          return result;
+        }
+      }
+
+      append(position, limit);
+      position = 0;
+      limit = in.read(buffer, 0, buffer.length);
+
+      if (limit < 0) {
+        limit = 0;
+        close();
+        return lineLength > 0 ? decode(line, 0, lineLength) : null;
+      }
+    }
+  }
+
+  /**
+   * Appends the given range of the read buffer to the line buffer, growing it if needed.
+   */
+  private void append(final int from, final int to) {
+    final int length = to - from;
+
+    if (length > 0) {
+      if (lineLength + length > line.length) {
+        line = Arrays.copyOf(line, Math.max(lineLength + length, line.length * 2));
+      }
+      System.arraycopy(buffer, from, line, lineLength, length);
+      lineLength += length;
+    }
+  }
+
+  /**
+   * Decodes the given range of bytes, without its trailing carriage return.
+   */
+  private String decode(final byte[] bytes, final int from, final int to) {
+    final int end = to > from && bytes[to - 1] == '\r' ? to - 1 : to;
+    return new String(bytes, from, end - from, charset);
+  }
+
+  /**
+   * Closes the stream and returns the read buffer to the pool. Further calls to
+   * {@link #hasNext()} return <code>false</code>.
+   */
+  @Override
+  public void close() {
+    if (!eof) {
+      eof = true;
+      BufferPool.HEAP.release(buffer);
+      buffer = null;
+
+      try {
+        in.close();
+      } catch (final IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+}
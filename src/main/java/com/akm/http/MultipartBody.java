@@ -0,0 +1,242 @@
+package com.akm.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.apache.hc.client5.http.entity.mime.AbstractContentBody;
+import org.apache.hc.client5.http.entity.mime.ByteArrayBody;
+import org.apache.hc.client5.http.entity.mime.HttpMultipartMode;
+import org.apache.hc.client5.http.entity.mime.MultipartEntityBuilder;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.io.entity.HttpEntityWrapper;
+import org.apache.hc.core5.util.Args;
+
+/**
+ * Builder of a <code>multipart/form-data</code> request body.
+ * <p>
+ * Parts are only referenced when added: strings and arrays are kept as they are, while files and
+ * streams are read when the request is sent and written to the connection through a pooled buffer,
+ * so the payload is never assembled in memory:
+ *
+ * <pre>
+ * RequestBody body = RequestBody.multipart()
+ *     .addField("title", "Quarterly report")
+ *     .addFile("report", Paths.get("report.pdf"), "application/pdf")
+ *     .build();
+ * http.post(url, headers, parameters, body);
+ * </pre>
+ * <p>
+ * When the size of every part is known, which is always the case unless a stream is added without
+ * its length, the exact length of the body is computed upfront and it is sent with a
+ * <code>Content-Length</code> header. Otherwise it is sent with chunked transfer encoding.
+ *
+ * @author Amir
+ * @see RequestBody#multipart()
+ * @since 1.1
+ */
+public final class MultipartBody {
+
+  private final MultipartEntityBuilder builder = MultipartEntityBuilder.create()
+      .setMode(HttpMultipartMode.EXTENDED)
+      .setCharset(StandardCharsets.UTF_8);
+
+  /**
+   * Whether every part can be written more than once, which is not the case of streams.
+   */
+  private boolean repeatable = true;
+
+  MultipartBody() {
+  }
+
+  /**
+   * Adds a text field, encoded as UTF-8.
+   *
+   * @param name  the field name
+   * @param value the field value
+   *
+   * @return this builder
+   */
+  public MultipartBody addField(final String name, final String value) {
+    Args.notNull(name, "name");
+    Args.notNull(value, "value");
+    builder.addTextBody(name, value, ContentType.TEXT_PLAIN.withCharset(StandardCharsets.UTF_8));
+    return this;
+  }
+
+  /**
+   * Adds the given bytes as a file. The array is not copied.
+   *
+   * @param name        the field name
+   * @param bytes       the file content
+   * @param filename    the file name
+   * @param contentType the content type of the file, or null for
+   *                    <code>application/octet-stream</code>
+   *
+   * @return this builder
+   */
+  public MultipartBody addBytes(final String name, final byte[] bytes, final String filename,
+      final String contentType) {
+    Args.notNull(name, "name");
+    Args.notNull(bytes, "bytes");
+    builder.addPart(name, new ByteArrayBody(bytes, toContentType(contentType), filename));
+    return this;
+  }
+
+  /**
+   * Adds a file, read when the request is sent. The size of the file is taken when this method is
+   * called.
+   *
+   * @param name the field name
+   * @param file the file
+   *
+   * @return this builder
+   *
+   * @throws UncheckedIOException if the size of the file could not be read
+   */
+  public MultipartBody addFile(final String name, final Path file) {
+    return addFile(name, file, null);
+  }
+
+  /**
+   * Adds a file of the given content type, read when the request is sent. The size of the file is
+   * taken when this method is called.
+   *
+   * @param name        the field name
+   * @param file        the file
+   * @param contentType the content type of the file, or null for
+   *                    <code>application/octet-stream</code>
+   *
+   * @return this builder
+   *
+   * @throws UncheckedIOException if the size of the file could not be read
+   */
+  public MultipartBody addFile(final String name, final Path file, final String contentType) {
+    Args.notNull(name, "name");
+    Args.notNull(file, "file");
+
+    try {
+      builder.addPart(name, new PathBody(file, Files.size(file), toContentType(contentType)));
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    return this;
+  }
+
+  /**
+   * Adds the content of a stream as a file, read when the request is sent. The stream is closed
+   * once it has been sent.
+   *
+   * @param name        the field name
+   * @param in          the stream
+   * @param filename    the file name
+   * @param contentType the content type of the file, or null for
+   *                    <code>application/octet-stream</code>
+   * @param length      the number of bytes of the stream, or -1 if unknown, in which case the
+   *                    body is sent with chunked transfer encoding
+   *
+   * @return this builder
+   */
+  public MultipartBody addStream(final String name, final InputStream in, final String filename,
+      final String contentType, final long length) {
+    Args.notNull(name, "name");
+    Args.notNull(in, "in");
+    Args.check(length >= -1, "length must be -1 or positive");
+    builder.addPart(name, new StreamBody(in, filename, length, toContentType(contentType)));
+    repeatable = false;
+    return this;
+  }
+
+  /**
+   * Builds the request body. The builder should not be used afterwards. A body with a stream part
+   * is not repeatable, as the stream can only be read once, so the request is never retried.
+   *
+   * @return the request body
+   */
+  public RequestBody build() {
+    final HttpEntity entity = builder.build();
+
+    // the multipart entity reports itself repeatable whenever its length is known
+    return new RequestBody(repeatable ? entity : new HttpEntityWrapper(entity) {
+      @Override
+      public boolean isRepeatable() {
+        return false;
+      }
+    });
+  }
+
+  private static ContentType toContentType(final String contentType) {
+    return contentType != null ? ContentType.parse(contentType)
+        : ContentType.APPLICATION_OCTET_STREAM;
+  }
+
+  /**
+   * Part holding the content of a file.
+   */
+  private static final class PathBody extends AbstractContentBody {
+
+    private final Path file;
+    private final long length;
+
+    PathBody(final Path file, final long length, final ContentType contentType) {
+      super(contentType);
+      this.file = file;
+      this.length = length;
+    }
+
+    @Override
+    public String getFilename() {
+      return file.getFileName().toString();
+    }
+
+    @Override
+    public long getContentLength() {
+      return length;
+    }
+
+    @Override
+    public void writeTo(final OutputStream out) throws IOException {
+      RequestBody.transfer(file, out, length);
+    }
+  }
+
+  /**
+   * Part holding the content of a stream.
+   */
+  private static final class StreamBody extends AbstractContentBody {
+
+    private final InputStream in;
+    private final String filename;
+    private final long length;
+
+    StreamBody(final InputStream in, final String filename, final long length,
+        final ContentType contentType) {
+      super(contentType);
+      this.in = in;
+      this.filename = filename;
+      this.length = length;
+    }
+
+    @Override
+    public String getFilename() {
+      return filename;
+    }
+
+    @Override
+    public long getContentLength() {
+      return length;
+    }
+
+    @Override
+    public void writeTo(final OutputStream out) throws IOException {
+      try (InputStream content = in) {
+        RequestBody.transfer(content, out, length);
+      }
+    }
+  }
+}
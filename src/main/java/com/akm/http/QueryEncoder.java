@@ -0,0 +1,311 @@
+package com.akm.http;
+
+import com.akm.http.request.RequestParameters;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Internal percent-encoder of url queries and <code>application/x-www-form-urlencoded</code>
+ * bodies.
+ * <p>
+ * Characters are classified through a precomputed table and escaped with a precomputed table of
+ * hexadecimal digits, encoding non-ASCII characters as UTF-8 on the fly. The encoded length of the
+ * parameters is computed first, so the output is written into a buffer of exactly the right size
+ * and no intermediate strings, byte arrays or name-value pairs are created.
+ * <p>
+ * Unreserved characters (letters, digits, <code>-._~</code>) are written as they are and every
+ * other character is percent-encoded, except that spaces are written as <code>+</code> in form
+ * bodies. A parameter with a null value is written as its name alone, and every value of
+ * {@link RequestParameters} is written, in order.
+ *
+ * @author Amir
+ * @since 1.1
+ */
+final class QueryEncoder {
+
+  private static final boolean[] UNRESERVED = new boolean[128];
+  private static final byte[] HEX = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B',
+      'C', 'D', 'E', 'F'};
+
+  static {
+    for (char c = 'a'; c <= 'z'; c++) {
+      UNRESERVED[c] = true;
+      UNRESERVED[Character.toUpperCase(c)] = true;
+    }
+    for (char c = '0'; c <= '9'; c++) {
+      UNRESERVED[c] = true;
+    }
+    UNRESERVED['-'] = true;
+    UNRESERVED['.'] = true;
+    UNRESERVED['_'] = true;
+    UNRESERVED['~'] = true;
+  }
+
+  private QueryEncoder() {
+  }
+
+  /**
+   * Appends the given parameters to the query of the given request path, replacing any parameter
+   * of the query with the same name as one of them.
+   *
+   * @param path       the request path, which may have a query
+   * @param parameters the parameters
+   *
+   * @return the request path with the parameters
+   */
+  static String appendQuery(final String path, final Map<String, String> parameters) {
+    final int mark = path.indexOf('?');
+    final int length = encodedLength(parameters, false);
+    final StringBuilder sb = new StringBuilder(path.length() + length + 1);
+
+    if (mark < 0) {
+      sb.append(path).append('?');
+    } else {
+      sb.append(path, 0, mark + 1);
+      appendRetained(sb, path, mark + 1, parameters);
+      if (sb.length() > mark + 1) {
+        sb.append('&');
+      }
+    }
+
+    final byte[] query = new byte[length];
+    encode(parameters, false, query);
+
+    for (final byte b : query) {
+      sb.append((char) b);
+    }
+
+    return sb.toString();
+  }
+
+  /**
+   * Returns the given parameters encoded as an <code>application/x-www-form-urlencoded</code>
+   * body.
+   *
+   * @param parameters the parameters
+   *
+   * @return the encoded body
+   */
+  static byte[] encodeForm(final Map<String, String> parameters) {
+    final byte[] body = new byte[encodedLength(parameters, true)];
+    encode(parameters, true, body);
+    return body;
+  }
+
+  /**
+   * Percent-encodes the given string, as in a url query.
+   *
+   * @param s the string
+   *
+   * @return the encoded string
+   */
+  static String encode(final String s) {
+    final byte[] encoded = new byte[encodedLength(s, false)];
+    encode(s, false, encoded, 0);
+    return new String(encoded, StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * Returns the length of the given parameters once encoded, including separators.
+   */
+  private static int encodedLength(final Map<String, String> parameters,
+      final boolean form) {
+    int length = -1;
+
+    if (parameters instanceof RequestParameters) {
+      final RequestParameters multi = (RequestParameters) parameters;
+      for (final String name : multi.keySet()) {
+        for (final String value : multi.getAll(name)) {
+          length += 1 + encodedLength(name, value, form);
+        }
+      }
+    } else {
+      for (final Map.Entry<String, String> e : parameters.entrySet()) {
+        length += 1 + encodedLength(e.getKey(), e.getValue(), form);
+      }
+    }
+
+    return Math.max(length, 0);
+  }
+
+  /**
+   * Writes the given parameters, encoded, into the given array of their exact encoded length.
+   */
+  private static void encode(final Map<String, String> parameters, final boolean form,
+      final byte[] out) {
+    int pos = 0;
+
+    if (parameters instanceof RequestParameters) {
+      final RequestParameters multi = (RequestParameters) parameters;
+      for (final String name : multi.keySet()) {
+        for (final String value : multi.getAll(name)) {
+          pos = encode(name, value, form, out, pos);
+        }
+      }
+    } else {
+      for (final Map.Entry<String, String> e : parameters.entrySet()) {
+        pos = encode(e.getKey(), e.getValue(), form, out, pos);
+      }
+    }
+  }
+
+  /**
+   * Returns the length of the given parameter once encoded, without separator.
+   */
+  private static int encodedLength(final String name, final String value, final boolean form) {
+    return encodedLength(name, form) + (value != null ? 1 + encodedLength(value, form) : 0);
+  }
+
+  /**
+   * Writes the given parameter, encoded, at the given position of the given array, preceded by a
+   * separator unless it is the first.
+   *
+   * @return the position after the encoded parameter
+   */
+  private static int encode(final String name, final String value, final boolean form,
+      final byte[] out, final int at) {
+    int pos = at;
+
+    if (pos > 0) {
+      out[pos++] = '&';
+    }
+    pos = encode(name, form, out, pos);
+    if (value != null) {
+      out[pos++] = '=';
+      pos = encode(value, form, out, pos);
+    }
+
+    return pos;
+  }
+
+  /**
+   * Returns the length of the given string once encoded.
+   */
+  private static int encodedLength(final String s, final boolean form) {
+    final int n = s.length();
+    int length = 0;
+
+    for (int i = 0; i < n; i++) {
+      final char c = s.charAt(i);
+
+      if (c < 0x80) {
+        length += UNRESERVED[c] || c == ' ' && form ? 1 : 3;
+      } else if (c < 0x800) {
+        length += 6;
+      } else if (Character.isHighSurrogate(c) && i + 1 < n
+          && Character.isLowSurrogate(s.charAt(i + 1))) {
+        length += 12;
+        i++;
+      } else if (Character.isSurrogate(c)) {
+        length += 3;
+      } else {
+        length += 9;
+      }
+    }
+
+    return length;
+  }
+
+  /**
+   * Writes the given string, encoded, at the given position of the given array.
+   *
+   * @return the position after the encoded string
+   */
+  private static int encode(final String s, final boolean form, final byte[] out, final int at) {
+    final int n = s.length();
+    int pos = at;
+
+    for (int i = 0; i < n; i++) {
+      final char c = s.charAt(i);
+
+      if (c < 0x80) {
+        if (UNRESERVED[c]) {
+          out[pos++] = (byte) c;
+        } else if (c == ' ' && form) {
+          out[pos++] = '+';
+        } else {
+          pos = escape(c, out, pos);
+        }
+      } else if (c < 0x800) {
+        pos = escape(0xC0 | c >> 6, out, pos);
+        pos = escape(0x80 | c & 0x3F, out, pos);
+      } else if (Character.isHighSurrogate(c) && i + 1 < n
+          && Character.isLowSurrogate(s.charAt(i + 1))) {
+        final int cp = Character.toCodePoint(c, s.charAt(++i));
+        pos = escape(0xF0 | cp >> 18, out, pos);
+        pos = escape(0x80 | cp >> 12 & 0x3F, out, pos);
+        pos = escape(0x80 | cp >> 6 & 0x3F, out, pos);
+        pos = escape(0x80 | cp & 0x3F, out, pos);
+      } else if (Character.isSurrogate(c)) {
+        // an unpaired surrogate cannot be encoded, and is replaced as by String.getBytes
+        pos = escape('?', out, pos);
+      } else {
+        pos = escape(0xE0 | c >> 12, out, pos);
+        pos = escape(0x80 | c >> 6 & 0x3F, out, pos);
+        pos = escape(0x80 | c & 0x3F, out, pos);
+      }
+    }
+
+    return pos;
+  }
+
+  private static int escape(final int b, final byte[] out, final int pos) {
+    out[pos] = '%';
+    out[pos + 1] = HEX[b >> 4 & 0xF];
+    out[pos + 2] = HEX[b & 0xF];
+    return pos + 3;
+  }
+
+  /**
+   * Appends the parameters of the given query whose names are not among the given parameters,
+   * as they are.
+   */
+  private static void appendRetained(final StringBuilder sb, final String query, final int from,
+      final Map<String, String> parameters) {
+    int start = from;
+    boolean first = true;
+
+    while (start <= query.length()) {
+      int end = query.indexOf('&', start);
+      if (end < 0) {
+        end = query.length();
+      }
+
+      if (end > start) {
+        int eq = query.indexOf('=', start);
+        if (eq < 0 || eq > end) {
+          eq = end;
+        }
+
+        if (!parameters.containsKey(decode(query, start, eq))) {
+          if (!first) {
+            sb.append('&');
+          }
+          sb.append(query, start, end);
+          first = false;
+        }
+      }
+
+      start = end + 1;
+    }
+  }
+
+  /**
+   * Decodes the given range of a query, in which a <code>+</code> stands for a space. A range that
+   * is not validly encoded is returned as it is.
+   */
+  private static String decode(final String s, final int from, final int to) {
+    final String raw = s.substring(from, to);
+
+    if (raw.indexOf('%') < 0 && raw.indexOf('+') < 0) {
+      return raw;
+    }
+
+    try {
+      return URLDecoder.decode(raw, StandardCharsets.UTF_8);
+    } catch (final IllegalArgumentException e) {
+      return raw;
+    }
+  }
+}
@@ -0,0 +1,466 @@
+package com.akm.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Supplier;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.io.entity.AbstractHttpEntity;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.http.io.entity.HttpEntities;
+import org.apache.hc.core5.util.Args;
+
+/**
+ * This class represents the body of an HTTP POST, PUT or PATCH request.
+ * <p>
+ * Bodies read from a stream, a file or a supplier of chunks are written to the connection as the
+ * request is sent, through a pooled buffer, so the memory used by an upload does not depend on its
+ * size:
+ *
+ * <pre>
+ * http.putBody(url, headers, parameters, RequestBody.of(Paths.get("backup.tar")));
+ * </pre>
+ * <p>
+ * A body whose length is known in advance is sent with a <code>Content-Length</code> header,
+ * otherwise it is sent with chunked transfer encoding. The content type of a body is
+ * <code>application/octet-stream</code>, or <code>text/plain; charset=UTF-8</code> for strings,
+ * unless a <code>Content-Type</code> header is set on the request.
+ * <p>
+ * Bodies built from strings, arrays, buffers and files can be sent any number of times; bodies
+ * built from streams and suppliers can only be sent once.
+ *
+ * @author Amir
+ * @see HttpService#post(String, java.util.Map, java.util.Map, RequestBody)
+ * @since 1.1
+ */
+public final class RequestBody {
+
+  /**
+   * The size of the buffer used to write streamed bodies.
+   */
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final HttpEntity entity;
+
+  RequestBody(final HttpEntity entity) {
+    this.entity = entity;
+  }
+
+  /**
+   * Returns a body holding the given string, encoded as UTF-8.
+   *
+   * @param body the body
+   *
+   * @return the request body
+   */
+  public static RequestBody of(final String body) {
+    Args.notNull(body, "body");
+    return new RequestBody(HttpEntities.create(body, StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Returns a body holding the given bytes. The array is not copied.
+   *
+   * @param body the body
+   *
+   * @return the request body
+   */
+  public static RequestBody of(final byte[] body) {
+    Args.notNull(body, "body");
+    return new RequestBody(new ByteArrayEntity(body, ContentType.APPLICATION_OCTET_STREAM));
+  }
+
+  /**
+   * Returns a body holding the remaining bytes of the given buffer. The buffer is not copied and
+   * its position is left unchanged.
+   *
+   * @param body the body
+   *
+   * @return the request body
+   */
+  public static RequestBody of(final ByteBuffer body) {
+    Args.notNull(body, "body");
+    return new RequestBody(new ByteBufferEntity(body.slice()));
+  }
+
+  /**
+   * Returns a body read from the given stream until its end, sent with chunked transfer encoding.
+   * The stream is closed once the body is sent.
+   *
+   * @param body the stream
+   *
+   * @return the request body
+   */
+  public static RequestBody of(final InputStream body) {
+    return of(body, -1);
+  }
+
+  /**
+   * Returns a body of the given length read from the given stream. The stream is closed once the
+   * body is sent.
+   *
+   * @param body   the stream
+   * @param length the number of bytes to send, or -1 to read the stream until its end and send it
+   *               with chunked transfer encoding
+   *
+   * @return the request body
+   */
+  public static RequestBody of(final InputStream body, final long length) {
+    Args.notNull(body, "body");
+    Args.check(length >= -1, "length must be -1 or positive");
+    return new RequestBody(new StreamEntity(body, length));
+  }
+
+  /**
+   * Returns a body read from the given file when it is sent. The size of the file is taken when
+   * this method is called, and that many bytes are sent.
+   *
+   * @param body the file
+   *
+   * @return the request body
+   *
+   * @throws UncheckedIOException if the size of the file could not be read
+   */
+  public static RequestBody of(final Path body) {
+    Args.notNull(body, "body");
+
+    try {
+      return new RequestBody(new FileEntity(body, Files.size(body)));
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Returns a body made of the chunks returned by the given supplier, sent with chunked transfer
+   * encoding as they are produced. The supplier is called until it returns null.
+   *
+   * @param chunks the chunk supplier
+   *
+   * @return the request body
+   */
+  public static RequestBody ofChunks(final Supplier<byte[]> chunks) {
+    Args.notNull(chunks, "chunks");
+    return new RequestBody(new ChunkEntity(chunks));
+  }
+
+  /**
+   * Returns a builder of a <code>multipart/form-data</code> body, to upload files along with form
+   * fields.
+   *
+   * @return the multipart body builder
+   */
+  public static MultipartBody multipart() {
+    return new MultipartBody();
+  }
+
+  /**
+   * Returns the length of this body.
+   *
+   * @return the length in bytes, or -1 if it is unknown
+   */
+  public long getContentLength() {
+    return entity.getContentLength();
+  }
+
+  /**
+   * Returns whether this body can be sent more than once.
+   *
+   * @return <code>true</code> if the body is repeatable, <code>false</code> otherwise
+   */
+  public boolean isRepeatable() {
+    return entity.isRepeatable();
+  }
+
+  /**
+   * Returns the entity sending this body.
+   *
+   * @return the entity
+   */
+  HttpEntity getEntity() {
+    return entity;
+  }
+
+  /**
+   * Writes the given number of bytes of the given stream through a pooled buffer.
+   *
+   * @param in     the stream
+   * @param out    the output
+   * @param length the number of bytes, or -1 to write until the end of the stream
+   *
+   * @throws IOException if the stream ended early or could not be read or written
+   */
+  static void transfer(final InputStream in, final OutputStream out, final long length)
+      throws IOException {
+    final byte[] buffer = BufferPool.HEAP.acquire(BUFFER_SIZE);
+
+    try {
+      long remaining = length < 0 ? Long.MAX_VALUE : length;
+      while (remaining > 0) {
+        final int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+        if (read < 0) {
+          if (length < 0) {
+            break;
+          }
+          throw new IOException(String.format("request body ended %d bytes early", remaining));
+        }
+        out.write(buffer, 0, read);
+        remaining -= read;
+      }
+    } finally {
+      BufferPool.HEAP.release(buffer);
+    }
+  }
+
+  /**
+   * Writes the given number of bytes of the given file, read through a file channel into a pooled
+   * buffer.
+   *
+   * @param path   the file
+   * @param out    the output
+   * @param length the number of bytes
+   *
+   * @throws IOException if the file is shorter than the length or could not be read or written
+   */
+  static void transfer(final Path path, final OutputStream out, final long length)
+      throws IOException {
+    final byte[] buffer = BufferPool.HEAP.acquire(BUFFER_SIZE);
+
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      final ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+      long remaining = length;
+
+      while (remaining > 0) {
+        wrapped.clear().limit((int) Math.min(buffer.length, remaining));
+        final int read = channel.read(wrapped);
+        if (read < 0) {
+          throw new IOException(String.format("file %s shrank while being sent", path));
+        }
+        out.write(buffer, 0, read);
+        remaining -= read;
+      }
+    } finally {
+      BufferPool.HEAP.release(buffer);
+    }
+  }
+
+  /**
+   * Entity sending the remaining bytes of a buffer.
+   */
+  private static final class ByteBufferEntity extends AbstractHttpEntity {
+
+    private final ByteBuffer buffer;
+
+    ByteBufferEntity(final ByteBuffer buffer) {
+      super(ContentType.APPLICATION_OCTET_STREAM, null);
+      this.buffer = buffer;
+    }
+
+    @Override
+    public boolean isRepeatable() {
+      return true;
+    }
+
+    @Override
+    public long getContentLength() {
+      return buffer.remaining();
+    }
+
+    @Override
+    public InputStream getContent() {
+      final ByteBuffer source = buffer.duplicate();
+
+      return new InputStream() {
+        @Override
+        public int read() {
+          return source.hasRemaining() ? source.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) {
+          if (!source.hasRemaining()) {
+            return len == 0 ? 0 : -1;
+          }
+          final int n = Math.min(len, source.remaining());
+          source.get(b, off, n);
+          return n;
+        }
+      };
+    }
+
+    @Override
+    public void writeTo(final OutputStream out) throws IOException {
+      if (buffer.hasArray()) {
+        out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+      } else {
+        transfer(getContent(), out, buffer.remaining());
+      }
+    }
+
+    @Override
+    public boolean isStreaming() {
+      return false;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+  /**
+   * Entity sending the content of a stream.
+   */
+  private static final class StreamEntity extends AbstractHttpEntity {
+
+    private final InputStream in;
+    private final long length;
+
+    StreamEntity(final InputStream in, final long length) {
+      super(ContentType.APPLICATION_OCTET_STREAM, null, length < 0);
+      this.in = in;
+      this.length = length;
+    }
+
+    @Override
+    public long getContentLength() {
+      return length;
+    }
+
+    @Override
+    public InputStream getContent() {
+      return in;
+    }
+
+    @Override
+    public void writeTo(final OutputStream out) throws IOException {
+      try (InputStream content = in) {
+        transfer(content, out, length);
+      }
+    }
+
+    @Override
+    public boolean isStreaming() {
+      return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+  }
+
+  /**
+   * Entity sending the content of a file, read through a file channel.
+   */
+  private static final class FileEntity extends AbstractHttpEntity {
+
+    private final Path path;
+    private final long length;
+
+    FileEntity(final Path path, final long length) {
+      super(ContentType.APPLICATION_OCTET_STREAM, null);
+      this.path = path;
+      this.length = length;
+    }
+
+    @Override
+    public boolean isRepeatable() {
+      return true;
+    }
+
+    @Override
+    public long getContentLength() {
+      return length;
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+      return Files.newInputStream(path);
+    }
+
+    @Override
+    public void writeTo(final OutputStream out) throws IOException {
+      transfer(path, out, length);
+    }
+
+    @Override
+    public boolean isStreaming() {
+      return false;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+  /**
+   * Entity sending the chunks returned by a supplier.
+   */
+  private static final class ChunkEntity extends AbstractHttpEntity {
+
+    private final Supplier<byte[]> chunks;
+
+    ChunkEntity(final Supplier<byte[]> chunks) {
+      super(ContentType.APPLICATION_OCTET_STREAM, null, true);
+      this.chunks = chunks;
+    }
+
+    @Override
+    public long getContentLength() {
+      return -1;
+    }
+
+    @Override
+    public InputStream getContent() {
+      return new InputStream() {
+        private InputStream chunk = InputStream.nullInputStream();
+
+        @Override
+        public int read() throws IOException {
+          final byte[] b = new byte[1];
+          return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+          int read;
+          while ((read = chunk.read(b, off, len)) < 0) {
+            final byte[] next = chunks.get();
+            if (next == null) {
+              return -1;
+            }
+            chunk = new ByteArrayInputStream(next);
+          }
+          return read;
+        }
+      };
+    }
+
+    @Override
+    public void writeTo(final OutputStream out) throws IOException {
+      byte[] chunk;
+
+      while ((chunk = chunks.get()) != null) {
+        out.write(chunk);
+      }
+    }
+
+    @Override
+    public boolean isStreaming() {
+      return true;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
@@ -0,0 +1,257 @@
+package com.akm.http;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.message.BufferedHeader;
+import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.CharArrayBuffer;
+
+/**
+ * An immutable, precompiled description of a request sent many times with different parameter
+ * values.
+ * <p>
+ * Everything that does not change between calls is prepared once when the template is built: the
+ * url is parsed, the fixed parameters are encoded into the query, and the headers are formatted
+ * into the form written to the connection. Each call then only encodes the values bound to the
+ * template's parameter slots and appends them to the precomputed path:
+ *
+ * <pre>
+ * RequestTemplate search = RequestTemplate.builder("GET", "https://api.example.com/items")
+ *     .header("Authorization", token)
+ *     .parameter("format", "json")
+ *     .slot("q")
+ *     .slot("page")
+ *     .build();
+ *
+ * HttpResponse resp = http.execute(search, "lamp", "2");
+ * </pre>
+ * <p>
+ * Templates are thread-safe and can be shared by any number of concurrent calls.
+ *
+ * @author Amir
+ * @see HttpService#execute(RequestTemplate, String...)
+ * @since 1.1
+ */
+public final class RequestTemplate {
+
+  private final String method;
+  private final String url;
+  private final URI uri;
+  private final String pathAndQuery;
+  private final Header[] headers;
+  private final String[] slots;
+  private final List<String> slotNames;
+
+  private RequestTemplate(final Builder builder) {
+    this.method = builder.method;
+
+    final StringBuilder sb = new StringBuilder(builder.url);
+    if (builder.query.length() > 0) {
+      sb.append(builder.url.indexOf('?') < 0 ? '?' : '&').append(builder.query);
+    }
+    this.url = sb.toString();
+    this.uri = URI.create(url);
+    this.pathAndQuery = pathAndQuery(uri);
+    this.headers = builder.headers.toArray(new Header[0]);
+    this.slotNames = Collections.unmodifiableList(new ArrayList<>(builder.slots));
+    this.slots = builder.slots.stream().map(name -> encode(name) + '=').toArray(String[]::new);
+  }
+
+  /**
+   * Returns a builder of a template for requests of the given method to the given url.
+   *
+   * @param method the HTTP method, such as <code>GET</code> or <code>POST</code>
+   * @param url    the url, which may include a query; a fragment is dropped, as it is never sent
+   *
+   * @return the template builder
+   *
+   * @throws IllegalArgumentException if the url is not valid
+   */
+  public static Builder builder(final String method, final String url) {
+    return new Builder(method, url);
+  }
+
+  /**
+   * Returns the HTTP method of the requests.
+   *
+   * @return the method
+   */
+  public String getMethod() {
+    return method;
+  }
+
+  /**
+   * Returns the url of the requests, including the fixed parameters but not the slots.
+   *
+   * @return the url
+   */
+  public String getUrl() {
+    return url;
+  }
+
+  /**
+   * Returns the names of the parameter slots, in the order their values are bound.
+   *
+   * @return the slot names
+   */
+  public List<String> getSlots() {
+    return slotNames;
+  }
+
+  URI getUri() {
+    return uri;
+  }
+
+  Header[] getHeaders() {
+    return headers;
+  }
+
+  /**
+   * Returns the request path of the template url with the given slot values appended to its
+   * query. Null values are left out.
+   *
+   * @param values the slot values
+   *
+   * @return the path and query
+   */
+  String path(final String[] values) {
+    return path(pathAndQuery, values);
+  }
+
+  /**
+   * Returns the request path of the given uri, resolved from the template url, with the given slot
+   * values appended to its query. Null values are left out.
+   *
+   * @param target the uri
+   * @param values the slot values
+   *
+   * @return the path and query
+   */
+  String path(final URI target, final String[] values) {
+    return path(pathAndQuery(target), values);
+  }
+
+  private String path(final String base, final String[] values) {
+    Args.check(values.length == slots.length, "expected %s slot values but got %s",
+        slots.length, values.length);
+
+    if (slots.length == 0) {
+      return base;
+    }
+
+    final StringBuilder sb = new StringBuilder(base.length() + 16 * slots.length).append(base);
+    boolean query = base.indexOf('?') >= 0;
+
+    for (int i = 0; i < slots.length; i++) {
+      if (values[i] != null) {
+        sb.append(query ? '&' : '?').append(slots[i]).append(encode(values[i]));
+        query = true;
+      }
+    }
+
+    return sb.toString();
+  }
+
+  private static String pathAndQuery(final URI uri) {
+    final String path = uri.getRawPath();
+    final String query = uri.getRawQuery();
+    final String base = path == null || path.isEmpty() ? "/" : path;
+    return query != null ? base + '?' + query : base;
+  }
+
+  private static String encode(final String s) {
+    return QueryEncoder.encode(s);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("RequestTemplate [%s %s, slots=%s]", method, url, slotNames);
+  }
+
+  /**
+   * Builder of a {@link RequestTemplate}.
+   */
+  public static final class Builder {
+
+    private final String method;
+    private final String url;
+    private final List<Header> headers = new ArrayList<>();
+    private final StringBuilder query = new StringBuilder();
+    private final List<String> slots = new ArrayList<>();
+
+    private Builder(final String method, final String url) {
+      this.method = Args.notBlank(method, "method").toUpperCase(Locale.ROOT);
+      Args.notBlank(url, "url");
+      URI.create(url);
+
+      // the query is appended to the url, so it must not end with a fragment
+      final int fragment = url.indexOf('#');
+      this.url = fragment < 0 ? url : url.substring(0, fragment);
+    }
+
+    /**
+     * Adds a header sent with every request.
+     *
+     * @param name  the header name
+     * @param value the header value
+     *
+     * @return this builder
+     */
+    public Builder header(final String name, final String value) {
+      Args.notBlank(name, "name");
+      Args.notNull(value, "value");
+
+      final CharArrayBuffer buffer = new CharArrayBuffer(name.length() + value.length() + 2);
+      buffer.append(name);
+      buffer.append(": ");
+      buffer.append(value);
+      headers.add(BufferedHeader.create(buffer));
+      return this;
+    }
+
+    /**
+     * Adds a query parameter with a fixed value, sent with every request.
+     *
+     * @param name  the parameter name
+     * @param value the parameter value
+     *
+     * @return this builder
+     */
+    public Builder parameter(final String name, final String value) {
+      Args.notNull(name, "name");
+      Args.notNull(value, "value");
+
+      if (query.length() > 0) {
+        query.append('&');
+      }
+      query.append(encode(name)).append('=').append(encode(value));
+      return this;
+    }
+
+    /**
+     * Adds a query parameter slot, whose value is bound on each request. Values are bound in the
+     * order the slots are added.
+     *
+     * @param name the parameter name
+     *
+     * @return this builder
+     */
+    public Builder slot(final String name) {
+      slots.add(Args.notNull(name, "name"));
+      return this;
+    }
+
+    /**
+     * Builds the template.
+     *
+     * @return the template
+     */
+    public RequestTemplate build() {
+      return new RequestTemplate(this);
+    }
+  }
+}
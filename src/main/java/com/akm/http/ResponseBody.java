@@ -0,0 +1,290 @@
+package com.akm.http;
+
+import com.akm.http.exception.HttpResponseTooLargeException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Internal holder of a buffered response body, kept either in memory or, when it is too large, in
+ * a temporary file.
+ * <p>
+ * A temporary file is deleted once the body is no longer reachable.
+ *
+ * @author Amir
+ * @see HttpResponse
+ * @since 1.1
+ */
+final class ResponseBody {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ResponseBody.class);
+
+  private static final Cleaner CLEANER = Cleaner.create();
+
+  private static final int SPILL_BUFFER_SIZE = 64 * 1024;
+
+  private final byte[] bytes;
+  private final Path file;
+  private final long size;
+
+  private ResponseBody(final byte[] bytes, final Path file, final long size) {
+    this.bytes = bytes;
+    this.file = file;
+    this.size = size;
+  }
+
+  /**
+   * Returns a body held in memory.
+   *
+   * @param bytes the body
+   *
+   * @return the response body
+   */
+  static ResponseBody of(final byte[] bytes) {
+    return new ResponseBody(bytes, null, bytes.length);
+  }
+
+  /**
+   * Reads the given stream to the end. The body is kept in memory unless it exceeds the maximum
+   * in-memory size of the given configuration, in which case it is written to a temporary file.
+   * <p>
+   * A body of unknown length is read into pooled chunks of growing size, which are joined into an
+   * array of the exact size once the end of the stream is reached.
+   *
+   * @param in            the stream to read
+   * @param contentLength the declared length of the body, or a negative value if unknown
+   * @param config        the service configuration
+   *
+   * @return the response body
+   *
+   * @throws HttpResponseTooLargeException if the body exceeds the maximum body size
+   * @throws IOException                   if the body could not be read or written
+   */
+  static ResponseBody read(final InputStream in, final long contentLength,
+      final HttpServiceConfig config) throws IOException {
+    final long maxSize = config.getMaxBodySize();
+    checkSize(contentLength, maxSize);
+
+    final long maxInMemory = config.getMaxInMemoryBodySize();
+    if (contentLength > maxInMemory) {
+      return spill(in, Collections.emptyList(), null, 0, config);
+    } else if (contentLength >= 0) {
+      // read straight into an array of the exact size
+      final byte[] bytes = new byte[(int) contentLength];
+      final int read = in.readNBytes(bytes, 0, bytes.length);
+      return of(read == bytes.length ? bytes : Arrays.copyOf(bytes, read));
+    }
+
+    final List<byte[]> chunks = new ArrayList<>();
+    byte[] chunk = BufferPool.HEAP.acquire(BufferPool.MIN_SIZE);
+    int position = 0;
+    long size = 0;
+
+    try {
+      int read;
+      while ((read = in.read(chunk, position, chunk.length - position)) != -1) {
+        position += read;
+        size += read;
+        checkSize(size, maxSize);
+
+        if (size > maxInMemory) {
+          return spill(in, chunks, chunk, position, config);
+        } else if (position == chunk.length) {
+          chunks.add(chunk);
+          chunk = BufferPool.HEAP.acquire(Math.min(chunk.length << 1, BufferPool.MAX_SIZE));
+          position = 0;
+        }
+      }
+
+      final byte[] bytes = new byte[(int) size];
+      int offset = 0;
+      for (final byte[] full : chunks) {
+        System.arraycopy(full, 0, bytes, offset, full.length);
+        offset += full.length;
+      }
+      System.arraycopy(chunk, 0, bytes, offset, position);
+
+      return of(bytes);
+    } finally {
+      chunks.forEach(BufferPool.HEAP::release);
+      BufferPool.HEAP.release(chunk);
+    }
+  }
+
+  /**
+   * Writes the given chunks, the filled part of the last chunk, and the rest of the stream to a
+   * temporary file.
+   *
+   * @param in         the stream to read
+   * @param chunks     the full chunks of the body already read
+   * @param last       the last chunk of the body already read, may be null
+   * @param lastLength the number of bytes read into the last chunk
+   * @param config     the service configuration
+   *
+   * @return the response body
+   *
+   * @throws IOException if the body could not be read or written
+   */
+  private static ResponseBody spill(final InputStream in, final List<byte[]> chunks,
+      final byte[] last, final int lastLength, final HttpServiceConfig config) throws IOException {
+    final Path dir = config.getTempDirectory();
+    final Path file = dir != null ? Files.createTempFile(dir, "http-body", ".tmp")
+        : Files.createTempFile("http-body", ".tmp");
+    final long maxSize = config.getMaxBodySize();
+    final byte[] buffer = BufferPool.HEAP.acquire(SPILL_BUFFER_SIZE);
+    long size = lastLength;
+    for (final byte[] chunk : chunks) {
+      size += chunk.length;
+    }
+
+    LOGGER.debug("response body exceeds {} bytes, writing it to {}",
+        config.getMaxInMemoryBodySize(), file);
+
+    try (OutputStream out = Files.newOutputStream(file)) {
+      checkSize(size, maxSize);
+      for (final byte[] chunk : chunks) {
+        out.write(chunk);
+      }
+      if (last != null) {
+        out.write(last, 0, lastLength);
+      }
+
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        size += read;
+        checkSize(size, maxSize);
+        out.write(buffer, 0, read);
+      }
+    } catch (final IOException e) {
+      Files.deleteIfExists(file);
+      throw e;
+    } finally {
+      BufferPool.HEAP.release(buffer);
+    }
+
+    final ResponseBody body = new ResponseBody(null, file, size);
+    CLEANER.register(body, () -> delete(file));
+    return body;
+  }
+
+  /**
+   * Checks that the given size does not exceed the maximum body size.
+   *
+   * @param size    the size
+   * @param maxSize the maximum body size
+   *
+   * @throws HttpResponseTooLargeException if the size exceeds the maximum body size
+   */
+  static void checkSize(final long size, final long maxSize)
+      throws HttpResponseTooLargeException {
+    if (size > maxSize) {
+      throw new HttpResponseTooLargeException(String.format(
+          "response body exceeds the maximum size of %d bytes", maxSize));
+    }
+  }
+
+  /**
+   * Deletes the given temporary file.
+   *
+   * @param file the file
+   */
+  private static void delete(final Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (final IOException e) {
+      LOGGER.warn("unable to delete temporary response body file {}", file, e);
+    }
+  }
+
+  /**
+   * Returns the size of the body in bytes.
+   *
+   * @return the size
+   */
+  long size() {
+    return size;
+  }
+
+  /**
+   * Returns whether the body is held in a temporary file.
+   *
+   * @return <code>true</code> if the body is in a file, <code>false</code> if it is in memory
+   */
+  boolean isFile() {
+    return file != null;
+  }
+
+  /**
+   * Returns a copy of the body.
+   *
+   * @return the body
+   */
+  byte[] bytes() {
+    if (bytes != null) {
+      return bytes.clone();
+    }
+
+    try {
+      return Files.readAllBytes(file);
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Returns a read-only buffer over the body, mapping the temporary file if there is one.
+   *
+   * @return the body
+   */
+  ByteBuffer buffer() {
+    if (bytes != null) {
+      return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+    }
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Returns a new stream reading the body.
+   *
+   * @return the stream
+   */
+  InputStream inputStream() {
+    if (bytes != null) {
+      return new ByteArrayInputStream(bytes);
+    }
+
+    try {
+      return Files.newInputStream(file);
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Returns the body held in memory, without copying it, or null if it is held in a file.
+   *
+   * @return the body
+   */
+  byte[] array() {
+    return bytes;
+  }
+}
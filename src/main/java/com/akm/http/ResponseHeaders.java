@@ -0,0 +1,280 @@
+package com.akm.http;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import org.apache.hc.core5.http.Header;
+
+/**
+ * Internal compact, case-insensitive, multi-valued index over response headers.
+ * <p>
+ * The headers are kept in their original array and order, indexed by an open addressing hash table
+ * of case-insensitive name hashes. Headers sharing a name are chained together, so all values of a
+ * repeated header are kept.
+ *
+ * @author Amir
+ * @see AbstractHttpResponse
+ * @since 1.1
+ */
+final class ResponseHeaders {
+
+  private final Header[] headers;
+  private final int[] hashes;
+
+  /**
+   * Index of the next header with the same name, or -1.
+   */
+  private final int[] next;
+
+  /**
+   * Open addressing table of the first header index of each distinct name, plus one. A zero slot
+   * is empty.
+   */
+  private final int[] table;
+
+  /**
+   * The number of distinct header names.
+   */
+  private int distinct;
+
+  private Map<String, String> map;
+
+  ResponseHeaders(final Header[] headers) {
+    final int size = headers.length;
+    this.headers = headers;
+    hashes = new int[size];
+    next = new int[size];
+    table = new int[tableSize(size)];
+
+    // insert in reverse, so each header becomes the head of its name's chain in turn and the
+    // chains end up in the original order
+    for (int i = size - 1; i >= 0; i--) {
+      final String name = headers[i].getName();
+      final int hash = hash(name);
+      hashes[i] = hash;
+
+      final int slot = find(name, hash);
+      if (table[slot] == 0) {
+        next[i] = -1;
+        distinct++;
+      } else {
+        next[i] = table[slot] - 1;
+      }
+      table[slot] = i + 1;
+    }
+  }
+
+  /**
+   * Returns the last value of the header with the given name, ignoring case, as a map of the
+   * headers would hold.
+   *
+   * @param name the header name
+   *
+   * @return the last value, or null if there is no such header
+   */
+  String get(final String name) {
+    final int index = indexOf(name);
+    return index < 0 ? null : headers[last(index)].getValue();
+  }
+
+  /**
+   * Returns all values of the header with the given name, ignoring case, in the order received.
+   *
+   * @param name the header name
+   *
+   * @return the unmodifiable list of values, empty if there is no such header
+   */
+  List<String> getAll(final String name) {
+    int index = indexOf(name);
+
+    if (index < 0) {
+      return Collections.emptyList();
+    } else if (next[index] < 0) {
+      return Collections.singletonList(headers[index].getValue());
+    }
+
+    final List<String> all = new ArrayList<>(4);
+    while (index >= 0) {
+      all.add(headers[index].getValue());
+      index = next[index];
+    }
+
+    return Collections.unmodifiableList(all);
+  }
+
+  /**
+   * Returns an unmodifiable, case-insensitive map view of the headers, mapping each distinct name
+   * to its last value.
+   *
+   * @return the map view
+   */
+  Map<String, String> asMap() {
+    if (map == null) {
+      map = new MapView();
+    }
+
+    return map;
+  }
+
+  /**
+   * Returns the index of the first header with the given name.
+   *
+   * @param name the header name
+   *
+   * @return the index, or -1 if there is no such header
+   */
+  private int indexOf(final String name) {
+    return table[find(name, hash(name))] - 1;
+  }
+
+  /**
+   * Returns the index of the last header in the chain starting at the given index.
+   *
+   * @param index the index of a header
+   *
+   * @return the index of the last header with the same name
+   */
+  private int last(final int index) {
+    int result = index;
+
+    while (next[result] >= 0) {
+      result = next[result];
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the table slot holding the given name, or the empty slot where it would be inserted.
+   *
+   * @param name the header name
+   * @param hash the case-insensitive hash of the name
+   *
+   * @return the slot
+   */
+  private int find(final String name, final int hash) {
+    final int mask = table.length - 1;
+    int slot = hash & mask;
+
+    while (table[slot] != 0) {
+      final int index = table[slot] - 1;
+      if (hashes[index] == hash && headers[index].getName().equalsIgnoreCase(name)) {
+        break;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    return slot;
+  }
+
+  /**
+   * Returns a case-insensitive hash of the given header name. Header names are ASCII tokens, so
+   * only ASCII letters are folded.
+   *
+   * @param name the header name
+   *
+   * @return the hash
+   */
+  private static int hash(final String name) {
+    int h = 0;
+
+    for (int i = 0; i < name.length(); i++) {
+      final char c = name.charAt(i);
+      h = 31 * h + (c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c);
+    }
+
+    // spread the high bits, as the table is indexed by the low bits
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * Returns the power of two table size for the given number of headers, keeping the load factor
+   * at or below one half.
+   *
+   * @param size the number of headers
+   *
+   * @return the table size
+   */
+  private static int tableSize(final int size) {
+    return Integer.highestOneBit(Math.max(size, 1) * 2 - 1) << 1;
+  }
+
+  /**
+   * Unmodifiable map view over the distinct header names.
+   */
+  private final class MapView extends AbstractMap<String, String> {
+
+    @Override
+    public String get(final Object key) {
+      return key instanceof String ? ResponseHeaders.this.get((String) key) : null;
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+      return key instanceof String && indexOf((String) key) >= 0;
+    }
+
+    @Override
+    public int size() {
+      return distinct;
+    }
+
+    @Override
+    public Set<Map.Entry<String, String>> entrySet() {
+      return new AbstractSet<>() {
+        @Override
+        public Iterator<Map.Entry<String, String>> iterator() {
+          return new Iterator<>() {
+            private int index = advance(0);
+
+            @Override
+            public boolean hasNext() {
+              return index < headers.length;
+            }
+
+            @Override
+            public Map.Entry<String, String> next() {
+              if (index >= headers.length) {
+                throw new NoSuchElementException();
+              }
+
+              final Map.Entry<String, String> entry = new SimpleImmutableEntry<>(
+                  headers[index].getName(), headers[last(index)].getValue());
+              index = advance(index + 1);
+              return entry;
+            }
+          };
+        }
+
+        @Override
+        public int size() {
+          return distinct;
+        }
+      };
+    }
+
+    /**
+     * Returns the index of the first header at or after the given index that is the first
+     * occurrence of its name.
+     *
+     * @param from the index to start at
+     *
+     * @return the index, or the number of headers if there is none
+     */
+    private int advance(final int from) {
+      int index = from;
+
+      while (index < headers.length && indexOf(headers[index].getName()) != index) {
+        index++;
+      }
+
+      return index;
+    }
+  }
+}
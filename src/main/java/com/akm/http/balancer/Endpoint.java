@@ -0,0 +1,235 @@
+package com.akm.http.balancer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.hc.core5.util.Args;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A single replica of a logical service, identified by its base url.
+ * <p>
+ * Each endpoint tracks the number of requests currently in flight and an exponentially weighted
+ * moving average of observed request latency, which {@link LoadBalancer} implementations use to
+ * pick a target.
+ * <p>
+ * An endpoint may be temporarily ejected from its group by outlier detection or a failed health
+ * check, in which case it receives no requests until it is re-admitted. The number of ejections and
+ * re-admissions is recorded for monitoring.
+ *
+ * @author Amir
+ * @see EndpointGroup
+ * @since 1.1
+ */
+public final class Endpoint {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(Endpoint.class);
+
+  /**
+   * The weight given to the newest latency sample in the moving average.
+   */
+  private static final double LATENCY_DECAY = 0.3;
+
+  private final String baseUrl;
+  private final AtomicInteger outstanding = new AtomicInteger();
+  private final AtomicLong latency = new AtomicLong();
+  private final AtomicInteger consecutiveErrors = new AtomicInteger();
+  private final LongAdder ejections = new LongAdder();
+  private final LongAdder readmissions = new LongAdder();
+
+  /**
+   * Whether this endpoint is currently ejected.
+   */
+  private volatile boolean ejected;
+
+  /**
+   * The {@link System#nanoTime()} at which an ejected endpoint becomes eligible for re-admission.
+   */
+  private volatile long ejectedUntil;
+
+  /**
+   * Constructs a new <code>Endpoint</code> for the given base url.
+   *
+   * @param baseUrl the base url of the replica, e.g. <code>http://10.0.0.1:8080/api</code>
+   */
+  public Endpoint(final String baseUrl) {
+    final String url = Args.notBlank(baseUrl, "base url");
+    this.baseUrl = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+  }
+
+  /**
+   * Returns the base url of this endpoint, without a trailing slash.
+   *
+   * @return the base url
+   */
+  public String getBaseUrl() {
+    return baseUrl;
+  }
+
+  /**
+   * Returns the number of requests currently in flight to this endpoint.
+   *
+   * @return the number of outstanding requests
+   */
+  public int getOutstandingRequests() {
+    return outstanding.get();
+  }
+
+  /**
+   * Returns the moving average of observed request latency in nanoseconds, or <code>0</code> if no
+   * request has completed yet.
+   *
+   * @return the average latency in nanoseconds
+   */
+  public long getLatency() {
+    return latency.get();
+  }
+
+  /**
+   * Records the start of a request to this endpoint.
+   */
+  public void onRequestStart() {
+    outstanding.incrementAndGet();
+  }
+
+  /**
+   * Records the completion of a request to this endpoint. Any response received from the endpoint,
+   * regardless of the status code, counts as a completion.
+   *
+   * @param elapsedNanos the time taken by the request in nanoseconds
+   */
+  public void onRequestComplete(final long elapsedNanos) {
+    outstanding.decrementAndGet();
+    latency.updateAndGet(current -> current == 0 ? elapsedNanos
+        : current + (long) ((elapsedNanos - current) * LATENCY_DECAY));
+  }
+
+  /**
+   * Records a request to this endpoint that failed without receiving a response.
+   *
+   * @param elapsedNanos the time taken by the request in nanoseconds
+   */
+  public void onRequestFailure(final long elapsedNanos) {
+    onRequestComplete(elapsedNanos);
+  }
+
+  /**
+   * Returns the number of consecutive requests to this endpoint that failed or received a server
+   * error response.
+   *
+   * @return the number of consecutive errors
+   */
+  public int getConsecutiveErrors() {
+    return consecutiveErrors.get();
+  }
+
+  /**
+   * Returns whether this endpoint is currently ejected from its group.
+   *
+   * @return <code>true</code> if the endpoint is ejected, <code>false</code> otherwise
+   */
+  public boolean isEjected() {
+    return ejected;
+  }
+
+  /**
+   * Returns the number of times this endpoint has been ejected.
+   *
+   * @return the ejection count
+   */
+  public long getEjectionCount() {
+    return ejections.sum();
+  }
+
+  /**
+   * Returns the number of times this endpoint has been re-admitted after an ejection.
+   *
+   * @return the re-admission count
+   */
+  public long getReadmissionCount() {
+    return readmissions.sum();
+  }
+
+  /**
+   * Records an error and returns the number of consecutive errors.
+   *
+   * @return the number of consecutive errors, including this one
+   */
+  int recordError() {
+    return consecutiveErrors.incrementAndGet();
+  }
+
+  /**
+   * Resets the number of consecutive errors after a successful request.
+   */
+  void recordSuccess() {
+    consecutiveErrors.set(0);
+  }
+
+  /**
+   * Ejects this endpoint for the given duration, unless it is already ejected.
+   *
+   * @param durationNanos the ejection duration in nanoseconds
+   *
+   * @return <code>true</code> if the endpoint was ejected by this call
+   */
+  synchronized boolean eject(final long durationNanos) {
+    if (ejected) {
+      return false;
+    }
+
+    ejectedUntil = System.nanoTime() + durationNanos;
+    ejected = true;
+    ejections.increment();
+    return true;
+  }
+
+  /**
+   * Returns whether this endpoint may receive requests, re-admitting it if its ejection has
+   * expired.
+   *
+   * @param now the current {@link System#nanoTime()}
+   *
+   * @return <code>true</code> if the endpoint is available
+   */
+  boolean isAvailable(final long now) {
+    return !ejected || readmit(now);
+  }
+
+  /**
+   * Re-admits this endpoint if its ejection has expired.
+   *
+   * @param now the current {@link System#nanoTime()}
+   *
+   * @return <code>true</code> if the endpoint is no longer ejected
+   */
+  private synchronized boolean readmit(final long now) {
+    if (ejected && now - ejectedUntil >= 0 && readmit()) {
+      LOGGER.info("endpoint {} re-admitted", baseUrl);
+    }
+
+    return !ejected;
+  }
+
+  /**
+   * Re-admits this endpoint immediately, whether or not its ejection has expired.
+   *
+   * @return <code>true</code> if the endpoint was ejected and has been re-admitted by this call
+   */
+  synchronized boolean readmit() {
+    if (!ejected) {
+      return false;
+    }
+
+    ejected = false;
+    consecutiveErrors.set(0);
+    readmissions.increment();
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    return baseUrl;
+  }
+}
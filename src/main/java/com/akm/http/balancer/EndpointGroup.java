@@ -0,0 +1,412 @@
+package com.akm.http.balancer;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import org.apache.hc.core5.util.Args;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A logical service backed by a set of replica {@link Endpoint}s.
+ * <p>
+ * Once registered with an <code>HttpService</code>, any request url whose host is the group name is
+ * sent to one of the group's endpoints instead. For example, with the following group:
+ *
+ * <pre>
+ * new EndpointGroup("orders",
+ *     List.of("http://10.0.0.1:8080/api", "http://10.0.0.2:8080/api"),
+ *     new PowerOfTwoChoicesLoadBalancer());
+ * </pre>
+ * <p>
+ * a request to <code>http://orders/items?id=5</code> is sent to either
+ * <code>http://10.0.0.1:8080/api/items?id=5</code> or
+ * <code>http://10.0.0.2:8080/api/items?id=5</code>, as chosen by the {@link LoadBalancer}.
+ * <p>
+ * Endpoints are passively monitored and ejected from the group for the configured ejection time
+ * when they return too many consecutive server errors, or when their average latency exceeds the
+ * group median by the configured factor. If a health check path is set, the
+ * <code>HttpService</code> also actively probes each endpoint with a HEAD request at a fixed
+ * interval, ejects those that fail, and re-admits ejected endpoints as soon as they pass. At least
+ * one endpoint is always left in the group.
+ *
+ * @author Amir
+ * @see Endpoint
+ * @see LoadBalancer
+ * @since 1.1
+ */
+public final class EndpointGroup {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(EndpointGroup.class);
+
+  /**
+   * The minimum number of endpoints with latency samples before latency outliers are ejected.
+   */
+  private static final int MIN_LATENCY_SAMPLES = 3;
+
+  private final String name;
+  private final List<Endpoint> endpoints;
+  private final LoadBalancer loadBalancer;
+
+  private volatile int maxConsecutiveErrors = 5;
+  private volatile double maxLatencyFactor = 3.0;
+  private volatile Duration ejectionTime = Duration.ofSeconds(30);
+  private volatile String healthCheckPath;
+  private volatile Duration healthCheckInterval = Duration.ofSeconds(10);
+
+  /**
+   * Constructs a new <code>EndpointGroup</code> that balances requests using a
+   * {@link RoundRobinLoadBalancer}.
+   *
+   * @param name     the logical service name
+   * @param baseUrls the base urls of the replicas
+   */
+  public EndpointGroup(final String name, final List<String> baseUrls) {
+    this(name, baseUrls, new RoundRobinLoadBalancer());
+  }
+
+  /**
+   * Constructs a new <code>EndpointGroup</code>.
+   *
+   * @param name         the logical service name
+   * @param baseUrls     the base urls of the replicas
+   * @param loadBalancer the strategy used to choose an endpoint for each request
+   */
+  public EndpointGroup(final String name, final List<String> baseUrls,
+      final LoadBalancer loadBalancer) {
+    this.name = Args.notBlank(name, "name").toLowerCase(Locale.ROOT);
+    Args.notEmpty(baseUrls, "base urls");
+    this.endpoints = baseUrls.stream().map(Endpoint::new)
+        .collect(Collectors.toUnmodifiableList());
+    this.loadBalancer = Args.notNull(loadBalancer, "load balancer");
+  }
+
+  /**
+   * Returns the logical service name, in lower case.
+   *
+   * @return the name
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the unmodifiable list of endpoints in this group.
+   *
+   * @return the endpoints
+   */
+  public List<Endpoint> getEndpoints() {
+    return endpoints;
+  }
+
+  /**
+   * Returns the load balancer used by this group.
+   *
+   * @return the load balancer
+   */
+  public LoadBalancer getLoadBalancer() {
+    return loadBalancer;
+  }
+
+  /**
+   * Returns the number of consecutive failed or server error responses after which an endpoint is
+   * ejected. The default is 5.
+   *
+   * @return the maximum number of consecutive errors
+   */
+  public int getMaxConsecutiveErrors() {
+    return maxConsecutiveErrors;
+  }
+
+  /**
+   * Sets the number of consecutive failed or server error responses after which an endpoint is
+   * ejected.
+   *
+   * @param maxConsecutiveErrors the maximum number of consecutive errors
+   */
+  public void setMaxConsecutiveErrors(final int maxConsecutiveErrors) {
+    this.maxConsecutiveErrors = Args.positive(maxConsecutiveErrors, "max consecutive errors");
+  }
+
+  /**
+   * Returns the factor of the group median latency above which an endpoint is ejected. The default
+   * is 3.
+   *
+   * @return the maximum latency factor
+   */
+  public double getMaxLatencyFactor() {
+    return maxLatencyFactor;
+  }
+
+  /**
+   * Sets the factor of the group median latency above which an endpoint is ejected.
+   *
+   * @param maxLatencyFactor the maximum latency factor, greater than 1
+   */
+  public void setMaxLatencyFactor(final double maxLatencyFactor) {
+    Args.check(maxLatencyFactor > 1, "max latency factor must be greater than 1");
+    this.maxLatencyFactor = maxLatencyFactor;
+  }
+
+  /**
+   * Returns how long an ejected endpoint is kept out of the group. The default is 30 seconds.
+   *
+   * @return the ejection time
+   */
+  public Duration getEjectionTime() {
+    return ejectionTime;
+  }
+
+  /**
+   * Sets how long an ejected endpoint is kept out of the group.
+   *
+   * @param ejectionTime the ejection time
+   */
+  public void setEjectionTime(final Duration ejectionTime) {
+    this.ejectionTime = Args.notNull(ejectionTime, "ejection time");
+  }
+
+  /**
+   * Returns the path, relative to each endpoint's base url, probed by active health checks, or null
+   * if active health checking is disabled. This is the default.
+   *
+   * @return the health check path
+   */
+  public String getHealthCheckPath() {
+    return healthCheckPath;
+  }
+
+  /**
+   * Sets the path probed by active health checks, resolved against each endpoint's base url as a
+   * request path is. Must be set before the group is registered with an <code>HttpService</code>.
+   *
+   * @param healthCheckPath the health check path, or null to disable active health checking
+   *
+   * @throws IllegalArgumentException if the path is not a valid uri
+   */
+  public void setHealthCheckPath(final String healthCheckPath) {
+    if (healthCheckPath != null) {
+      URI.create(healthCheckPath);
+    }
+    this.healthCheckPath = healthCheckPath;
+  }
+
+  /**
+   * Returns the interval between active health checks. The default is 10 seconds.
+   *
+   * @return the health check interval
+   */
+  public Duration getHealthCheckInterval() {
+    return healthCheckInterval;
+  }
+
+  /**
+   * Sets the interval between active health checks. Must be set before the group is registered
+   * with an <code>HttpService</code>.
+   *
+   * @param healthCheckInterval the health check interval
+   */
+  public void setHealthCheckInterval(final Duration healthCheckInterval) {
+    Args.check(!healthCheckInterval.isNegative() && !healthCheckInterval.isZero(),
+        "health check interval must be positive");
+    this.healthCheckInterval = healthCheckInterval;
+  }
+
+  /**
+   * Returns the number of endpoints currently ejected from this group.
+   *
+   * @return the number of ejected endpoints
+   */
+  public int getEjectedCount() {
+    int count = 0;
+
+    for (final Endpoint endpoint : endpoints) {
+      if (endpoint.isEjected()) {
+        count++;
+      }
+    }
+
+    return count;
+  }
+
+  /**
+   * Chooses the endpoint for the next request using the group's {@link LoadBalancer}. Ejected
+   * endpoints are not considered, unless every endpoint is ejected.
+   *
+   * @return the chosen endpoint
+   */
+  public Endpoint select() {
+    final long now = System.nanoTime();
+    int available = 0;
+
+    for (final Endpoint endpoint : endpoints) {
+      if (endpoint.isAvailable(now)) {
+        available++;
+      }
+    }
+
+    if (available == endpoints.size() || available == 0) {
+      return loadBalancer.choose(endpoints);
+    }
+
+    return loadBalancer.choose(endpoints.stream().filter(e -> !e.isEjected())
+        .collect(Collectors.toList()));
+  }
+
+  /**
+   * Records a response received from the given endpoint, ejecting it if it is an outlier.
+   *
+   * @param endpoint     the endpoint
+   * @param statusCode   the response status code
+   * @param elapsedNanos the time taken by the request in nanoseconds
+   */
+  public void onResponse(final Endpoint endpoint, final int statusCode,
+      final long elapsedNanos) {
+    endpoint.onRequestComplete(elapsedNanos);
+
+    if (statusCode >= 500) {
+      onError(endpoint);
+    } else {
+      endpoint.recordSuccess();
+
+      if (isLatencyOutlier(endpoint)) {
+        eject(endpoint, "latency above group median");
+      }
+    }
+  }
+
+  /**
+   * Records a request to the given endpoint that failed without a response, ejecting the endpoint
+   * if it has failed too many times in a row.
+   *
+   * @param endpoint     the endpoint
+   * @param elapsedNanos the time taken by the request in nanoseconds
+   */
+  public void onFailure(final Endpoint endpoint, final long elapsedNanos) {
+    endpoint.onRequestFailure(elapsedNanos);
+    onError(endpoint);
+  }
+
+  /**
+   * Records the result of an active health check of the given endpoint, ejecting it if the check
+   * failed, or re-admitting it before its ejection time has elapsed if the check passed.
+   *
+   * @param endpoint the endpoint
+   * @param healthy  whether the health check passed
+   */
+  public void onHealthCheck(final Endpoint endpoint, final boolean healthy) {
+    if (!healthy) {
+      eject(endpoint, "failed health check");
+    } else if (endpoint.readmit()) {
+      LOGGER.info("re-admitted endpoint {} of group {} (passed health check)", endpoint, name);
+    }
+  }
+
+  /**
+   * Records an error for the given endpoint, ejecting it if the maximum number of consecutive
+   * errors was reached.
+   *
+   * @param endpoint the endpoint
+   */
+  private void onError(final Endpoint endpoint) {
+    if (endpoint.recordError() >= maxConsecutiveErrors) {
+      eject(endpoint, "consecutive errors");
+    }
+  }
+
+  /**
+   * Returns whether the given endpoint's average latency exceeds the group median by more than the
+   * maximum latency factor.
+   *
+   * @param endpoint the endpoint
+   *
+   * @return <code>true</code> if the endpoint is a latency outlier
+   */
+  private boolean isLatencyOutlier(final Endpoint endpoint) {
+    if (endpoints.size() < MIN_LATENCY_SAMPLES) {
+      return false;
+    }
+
+    final long[] latencies = new long[endpoints.size()];
+    int samples = 0;
+
+    for (final Endpoint e : endpoints) {
+      if (!e.isEjected() && e.getLatency() > 0) {
+        latencies[samples++] = e.getLatency();
+      }
+    }
+
+    if (samples < MIN_LATENCY_SAMPLES) {
+      return false;
+    }
+
+    Arrays.sort(latencies, 0, samples);
+    final long median = latencies[samples / 2];
+    return endpoint.getLatency() > median * maxLatencyFactor;
+  }
+
+  /**
+   * Ejects the given endpoint for the ejection time, unless it is the last available endpoint.
+   * <p>
+   * Counting the ejected endpoints and ejecting is done under the group's lock, so that concurrent
+   * failures cannot eject every endpoint.
+   *
+   * @param endpoint the endpoint
+   * @param reason   the reason for the ejection, used for logging
+   */
+  private synchronized void eject(final Endpoint endpoint, final String reason) {
+    if (endpoint.isEjected()) {
+      return;
+    }
+
+    if (getEjectedCount() + 1 >= endpoints.size()) {
+      LOGGER.warn("not ejecting endpoint {} of group {} ({}): no other endpoint available",
+          endpoint, name, reason);
+      return;
+    }
+
+    if (endpoint.eject(ejectionTime.toNanos())) {
+      LOGGER.warn("ejected endpoint {} of group {} for {} ({})", endpoint, name,
+          ejectionTime, reason);
+    }
+  }
+
+  /**
+   * Rewrites the given logical request uri to target the given endpoint. The path, query, and
+   * fragment of the uri are appended to the endpoint's base url.
+   *
+   * @param endpoint the endpoint to target
+   * @param uri      the logical request uri
+   *
+   * @return the url of the request on the endpoint
+   */
+  public String resolve(final Endpoint endpoint, final URI uri) {
+    final StringBuilder sb = new StringBuilder(endpoint.getBaseUrl());
+    final String path = uri.getRawPath();
+
+    if (path != null && !path.isEmpty()) {
+      if (path.charAt(0) != '/') {
+        sb.append('/');
+      }
+      sb.append(path);
+    }
+
+    if (uri.getRawQuery() != null) {
+      sb.append('?').append(uri.getRawQuery());
+    }
+
+    if (uri.getRawFragment() != null) {
+      sb.append('#').append(uri.getRawFragment());
+    }
+
+    return sb.toString();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s%s", name, endpoints);
+  }
+}
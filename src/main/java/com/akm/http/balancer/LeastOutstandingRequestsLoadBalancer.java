@@ -0,0 +1,37 @@
+package com.akm.http.balancer;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * {@link LoadBalancer} that chooses the endpoint with the fewest requests in flight.
+ * <p>
+ * The scan starts at a random position so that ties are not always resolved in favour of the same
+ * endpoint.
+ *
+ * @author Amir
+ * @see LoadBalancer
+ * @since 1.1
+ */
+public final class LeastOutstandingRequestsLoadBalancer implements LoadBalancer {
+
+  @Override
+  public Endpoint choose(final List<Endpoint> endpoints) {
+    final int size = endpoints.size();
+    final int offset = ThreadLocalRandom.current().nextInt(size);
+    Endpoint best = null;
+    int bestOutstanding = Integer.MAX_VALUE;
+
+    for (int i = 0; i < size; i++) {
+      final Endpoint endpoint = endpoints.get((offset + i) % size);
+      final int outstanding = endpoint.getOutstandingRequests();
+
+      if (outstanding < bestOutstanding) {
+        best = endpoint;
+        bestOutstanding = outstanding;
+      }
+    }
+
+    return best;
+  }
+}
@@ -0,0 +1,25 @@
+package com.akm.http.balancer;
+
+import java.util.List;
+
+/**
+ * Strategy used by an {@link EndpointGroup} to choose the endpoint a request is sent to.
+ * <p>
+ * Implementations must be thread-safe, as a single instance is shared by all requests to the
+ * group.
+ *
+ * @author Amir
+ * @see EndpointGroup
+ * @since 1.1
+ */
+public interface LoadBalancer {
+
+  /**
+   * Chooses one of the given endpoints.
+   *
+   * @param endpoints the candidate endpoints, never empty
+   *
+   * @return the chosen endpoint
+   */
+  Endpoint choose(final List<Endpoint> endpoints);
+}
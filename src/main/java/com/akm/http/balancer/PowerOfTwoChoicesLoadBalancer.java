@@ -0,0 +1,47 @@
+package com.akm.http.balancer;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * {@link LoadBalancer} that samples two endpoints at random and chooses the one with the lower
+ * expected cost, where the cost is the observed average latency weighted by the number of requests
+ * already in flight.
+ * <p>
+ * Endpoints with no completed requests have no cost, so new endpoints are warmed up quickly.
+ *
+ * @author Amir
+ * @see LoadBalancer
+ * @since 1.1
+ */
+public final class PowerOfTwoChoicesLoadBalancer implements LoadBalancer {
+
+  @Override
+  public Endpoint choose(final List<Endpoint> endpoints) {
+    final int size = endpoints.size();
+
+    if (size == 1) {
+      return endpoints.get(0);
+    }
+
+    final ThreadLocalRandom random = ThreadLocalRandom.current();
+    final int first = random.nextInt(size);
+    // pick a second endpoint distinct from the first
+    final int second = (first + 1 + random.nextInt(size - 1)) % size;
+    final Endpoint a = endpoints.get(first);
+    final Endpoint b = endpoints.get(second);
+
+    return cost(a) <= cost(b) ? a : b;
+  }
+
+  /**
+   * Returns the expected cost of sending one more request to the given endpoint.
+   *
+   * @param endpoint the endpoint
+   *
+   * @return the expected cost
+   */
+  private double cost(final Endpoint endpoint) {
+    return (double) endpoint.getLatency() * (endpoint.getOutstandingRequests() + 1);
+  }
+}
@@ -0,0 +1,21 @@
+package com.akm.http.balancer;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link LoadBalancer} that cycles through the endpoints in order.
+ *
+ * @author Amir
+ * @see LoadBalancer
+ * @since 1.1
+ */
+public final class RoundRobinLoadBalancer implements LoadBalancer {
+
+  private final AtomicInteger next = new AtomicInteger();
+
+  @Override
+  public Endpoint choose(final List<Endpoint> endpoints) {
+    return endpoints.get(Math.floorMod(next.getAndIncrement(), endpoints.size()));
+  }
+}
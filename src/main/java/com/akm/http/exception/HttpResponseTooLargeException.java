@@ -0,0 +1,49 @@
+package com.akm.http.exception;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a response body exceeds the maximum body size allowed by the service. The request is
+ * aborted as soon as the limit is reached, without reading the rest of the body.
+ *
+ * @author Amir
+ * @since 1.1
+ */
+public class HttpResponseTooLargeException extends IOException {
+
+  private static final long serialVersionUID = -2735305418734958412L;
+
+  /**
+   * Constructs a new exception with <code>null</code> as its detail message.
+   */
+  public HttpResponseTooLargeException() {
+  }
+
+  /**
+   * Constructs a new exception with the specified detail message.
+   *
+   * @param message the detail message
+   */
+  public HttpResponseTooLargeException(final String message) {
+    super(message);
+  }
+
+  /**
+   * Constructs a new exception with the specified cause.
+   *
+   * @param cause the cause
+   */
+  public HttpResponseTooLargeException(final Throwable cause) {
+    super(cause);
+  }
+
+  /**
+   * Constructs a new exception with the specified detail message and cause.
+   *
+   * @param message the detail message
+   * @param cause the cause
+   */
+  public HttpResponseTooLargeException(final String message, final Throwable cause) {
+    super(message, cause);
+  }
+}
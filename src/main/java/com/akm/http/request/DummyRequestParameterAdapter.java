@@ -13,6 +13,11 @@ import com.akm.http.exception.HttpRequestTranslationException;
 final class DummyRequestParameterAdapter
     extends RequestParameterAdapter<Object> {
 
+  /**
+   * The shared instance.
+   */
+  static final DummyRequestParameterAdapter INSTANCE = new DummyRequestParameterAdapter();
+
   @Override
   public String convert(final Object t)
       throws HttpRequestTranslationException {
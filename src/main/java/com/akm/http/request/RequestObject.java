@@ -1,18 +1,15 @@
 package com.akm.http.request;
 
 import com.akm.http.exception.HttpRequestTranslationException;
-import com.akm.http.util.BeanUtil;
-import com.akm.http.util.CollectionUtil;
 import org.apache.hc.core5.util.TextUtils;
 
-import java.beans.IntrospectionException;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Modifier;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 /**
  * Interface used to provide a way for objects to translate their fields to request parameters. By
@@ -63,67 +60,99 @@ public interface RequestObject {
    *
    * @return the value mapper function
    */
-  @SuppressWarnings("unchecked")
   default Function<Field, String> getParameterValueMapper() {
-    return field -> {
-      try {
-        final RequestParameter parameter = field
-            .getAnnotation(RequestParameter.class);
-        Object obj;
-        String value = null;
-
-        if (Modifier.isPublic(field.getModifiers())) {
-          obj = field.get(this);
-        } else {
-          // field not public, invoke getter
-          if (Modifier.isFinal(field.getModifiers())) {
-            // no setter method, will throw exception otherwise
-            obj = BeanUtil.invokeGetterReadOnly(field.getName(),
-                getClass(), this);
-          } else {
-            obj = BeanUtil.invokeGetter(field.getName(), getClass(),
-                this);
-          }
-        }
+    final RequestObjectMetadata metadata = RequestObjectMetadata.of(getClass());
+    return field -> metadata.getParameter(field).value(this);
+  }
 
-        if (obj != null) {
-          // use adapter to convert parameter value
-          value = parameter.adapter().getDeclaredConstructor().newInstance().convert(obj);
-        }
+  /**
+   * Returns a Function to generate all values of a parameter from a Field.
+   * <p>
+   * The value of a Field whose type is an array or an {@link Iterable} is sent as one value per
+   * element, each element being converted by the Field's {@link RequestParameterAdapter}. The value
+   * of any other Field is the one returned by {@link #getParameterValueMapper()}.
+   *
+   * @return the values mapper function
+   */
+  default Function<Field, List<String>> getParameterValuesMapper() {
+    final RequestObjectMetadata metadata = RequestObjectMetadata.of(getClass());
+    final Function<Field, String> valueMapper = getParameterValueMapper();
 
-        final boolean blankValue = TextUtils.isBlank(value);
-        if (parameter.required() && blankValue) {
-          throw new HttpRequestTranslationException(String.format(
-              "request parameter %s was required, but no value was found",
-              parameter.value()));
-        } else if (!blankValue) {
-          return value;
-        } else {
-          return "";
-        }
-      } catch (IntrospectionException | IllegalAccessException | IllegalArgumentException | InvocationTargetException |
-               InstantiationException | NoSuchMethodException e) {
-        throw new HttpRequestTranslationException(
-            "unable to translate request parameter fields", e);
+    return field -> {
+      final Class<?> type = field.getType();
+      if (!type.isArray() && !Iterable.class.isAssignableFrom(type)) {
+        return Collections.singletonList(valueMapper.apply(field));
       }
+      return metadata.getParameter(field).values(this);
     };
   }
 
   /**
-   * Generate a Map of request parameters and their values from all request parameter fields. The
-   * Map is then post-filtered based on the Predicate returned by {@link #postFilterParameters()}.
+   * Generate the request parameters and their values from all request parameter fields, in the
+   * order the fields are declared. A field holding an array or an {@link Iterable} adds one value
+   * per element. The parameters are then post-filtered based on the Predicate returned by
+   * {@link #postFilterParameters()}.
+   * <p>
+   * The request parameter fields of each class, their annotations and their getters are looked up
+   * once and cached, so translating an object only reads and converts its field values.
+   * <p>
+   * The returned map is a {@link RequestParameters}, holding every value of a multi-valued
+   * parameter, which is sent as is by {@link com.akm.http.HttpService}. Cast it to read all the
+   * values of a parameter.
    *
-   * @return a map containing all request parameters and their values
+   * @return the request parameters and their values
    *
    * @throws HttpRequestTranslationException if any errors occur while translating fields
    */
   default Map<String, String> translate()
       throws HttpRequestTranslationException {
-    return CollectionUtil.filterMap(
-        BeanUtil.collector(BeanUtil.findAllFields(getClass()),
-            isRequestParameter(),
-            Collectors.toMap(getParameterKeyMapper(),
-                getParameterValueMapper())),
-        postFilterParameters());
+    final RequestObjectMetadata metadata = RequestObjectMetadata.of(getClass());
+    final RequestParameters parameters = new RequestParameters();
+
+    if (metadata.isDefaultMapping()) {
+      final Predicate<Map.Entry<String, String>> filter = metadata.isDefaultFilter() ? null
+          : postFilterParameters();
+
+      for (final RequestObjectMetadata.ParameterDescriptor parameter : metadata.getParameters()) {
+        final String name = parameter.getName();
+        if (parameter.isMultiValued()) {
+          for (final String value : parameter.values(this)) {
+            addParameter(parameters, filter, name, value);
+          }
+        } else {
+          addParameter(parameters, filter, name, parameter.value(this));
+        }
+      }
+
+      return parameters;
+    }
+
+    final Predicate<Field> isParameter = isRequestParameter();
+    final Function<Field, String> keyMapper = getParameterKeyMapper();
+    final Function<Field, List<String>> valuesMapper = getParameterValuesMapper();
+    final Predicate<Map.Entry<String, String>> filter = postFilterParameters();
+
+    for (final Field field : metadata.getFields()) {
+      if (isParameter.test(field)) {
+        final String name = keyMapper.apply(field);
+        for (final String value : valuesMapper.apply(field)) {
+          addParameter(parameters, filter, name, value);
+        }
+      }
+    }
+
+    return parameters;
+  }
+
+  /**
+   * Adds the given parameter if it passes the given filter, or if it is not blank when there is no
+   * filter.
+   */
+  private static void addParameter(final RequestParameters parameters,
+      final Predicate<Map.Entry<String, String>> filter, final String name, final String value) {
+    if (filter == null ? !TextUtils.isBlank(value)
+        : filter.test(new AbstractMap.SimpleImmutableEntry<>(name, value))) {
+      parameters.add(name, value);
+    }
   }
 }
@@ -0,0 +1,337 @@
+package com.akm.http.request;
+
+import com.akm.http.exception.HttpRequestTranslationException;
+import com.akm.http.util.BeanUtil;
+import java.beans.IntrospectionException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.hc.core5.util.TextUtils;
+
+/**
+ * Internal description of the request parameters of a {@link RequestObject} class.
+ * <p>
+ * Walking the class hierarchy, reading the {@link RequestParameter} annotations and introspecting
+ * the getters is done once per class, the first time an object of that class is translated, and
+ * the result is kept for as long as the class is loaded. Each request parameter field is described
+ * by a {@link ParameterDescriptor} holding everything needed to read and convert its value.
+ * Adapters are likewise instantiated once per adapter class and shared by every field and class
+ * using them.
+ * <p>
+ * A class that overrides none of the methods of {@link RequestObject} selecting and mapping fields
+ * is translated by iterating over its descriptors; any other class goes through its own methods,
+ * over the cached fields.
+ *
+ * @author Amir
+ * @see RequestObject#translate()
+ * @since 1.1
+ */
+final class RequestObjectMetadata {
+
+  private static final ClassValue<RequestObjectMetadata> METADATA =
+      new ClassValue<RequestObjectMetadata>() {
+        @Override
+        protected RequestObjectMetadata computeValue(final Class<?> type) {
+          return new RequestObjectMetadata(type);
+        }
+      };
+
+  private static final ClassValue<RequestParameterAdapter<?>> ADAPTERS =
+      new ClassValue<RequestParameterAdapter<?>>() {
+        @Override
+        protected RequestParameterAdapter<?> computeValue(final Class<?> type) {
+          if (type == DummyRequestParameterAdapter.class) {
+            return DummyRequestParameterAdapter.INSTANCE;
+          }
+
+          try {
+            return (RequestParameterAdapter<?>) type.getDeclaredConstructor().newInstance();
+          } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException
+                   | InstantiationException | NoSuchMethodException e) {
+            // nothing is cached, so the adapter is instantiated again on the next translation
+            throw new HttpRequestTranslationException(
+                "unable to translate request parameter fields", e);
+          }
+        }
+      };
+
+  private final Field[] fields;
+  private final ParameterDescriptor[] parameters;
+  private final Map<Field, ParameterDescriptor> descriptors;
+  private final boolean defaultMapping;
+  private final boolean defaultFilter;
+
+  private RequestObjectMetadata(final Class<?> type) {
+    this.fields = BeanUtil.findAllFields(type);
+
+    final List<ParameterDescriptor> list = new ArrayList<>();
+    final Map<Field, ParameterDescriptor> map = new HashMap<>();
+    for (final Field field : fields) {
+      final RequestParameter parameter = field.getAnnotation(RequestParameter.class);
+      if (parameter != null) {
+        final ParameterDescriptor descriptor = new ParameterDescriptor(type, field, parameter);
+        list.add(descriptor);
+        map.put(field, descriptor);
+      }
+    }
+
+    this.parameters = list.toArray(new ParameterDescriptor[0]);
+    this.descriptors = map;
+    this.defaultMapping = isDefault(type, "isRequestParameter")
+        && isDefault(type, "getParameterKeyMapper")
+        && isDefault(type, "getParameterValueMapper")
+        && isDefault(type, "getParameterValuesMapper");
+    this.defaultFilter = isDefault(type, "postFilterParameters");
+  }
+
+  /**
+   * Returns the metadata of the given class, computing it on first use.
+   *
+   * @param type the class
+   *
+   * @return the metadata
+   */
+  static RequestObjectMetadata of(final Class<?> type) {
+    return METADATA.get(type);
+  }
+
+  /**
+   * Returns the shared instance of the given adapter class, instantiating it on first use.
+   *
+   * @param type the adapter class
+   *
+   * @return the adapter
+   *
+   * @throws HttpRequestTranslationException if the adapter could not be instantiated
+   */
+  static RequestParameterAdapter<?> adapter(final Class<?> type) {
+    return ADAPTERS.get(type);
+  }
+
+  /**
+   * Returns all declared fields of the class and its super classes.
+   *
+   * @return the fields
+   */
+  Field[] getFields() {
+    return fields;
+  }
+
+  /**
+   * Returns the descriptors of the request parameter fields, in the order of {@link #getFields()}.
+   *
+   * @return the descriptors
+   */
+  ParameterDescriptor[] getParameters() {
+    return parameters;
+  }
+
+  /**
+   * Returns the descriptor of the given field.
+   *
+   * @param field the field
+   *
+   * @return the descriptor, or null if the field is not annotated with {@link RequestParameter}
+   */
+  ParameterDescriptor getParameter(final Field field) {
+    return descriptors.get(field);
+  }
+
+  /**
+   * Returns whether the class selects and maps its fields with the default methods of
+   * {@link RequestObject}, so that it can be translated from its descriptors alone.
+   *
+   * @return <code>true</code> if the mapping is the default one, <code>false</code> otherwise
+   */
+  boolean isDefaultMapping() {
+    return defaultMapping;
+  }
+
+  /**
+   * Returns whether the class filters its parameters with the default
+   * {@link RequestObject#postFilterParameters()}, which removes blank values.
+   *
+   * @return <code>true</code> if the filter is the default one, <code>false</code> otherwise
+   */
+  boolean isDefaultFilter() {
+    return defaultFilter;
+  }
+
+  private static boolean isDefault(final Class<?> type, final String method) {
+    try {
+      return type.getMethod(method).getDeclaringClass() == RequestObject.class;
+    } catch (final NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Description of a request parameter field: its name, whether it is required, its adapter, and
+   * how its value is read.
+   */
+  static final class ParameterDescriptor {
+
+    private final Field field;
+    private final String name;
+    private final boolean required;
+    private final Class<?> adapterType;
+    private final boolean multiValued;
+    private final Method getter;
+    private final IntrospectionException getterError;
+
+    private ParameterDescriptor(final Class<?> type, final Field field,
+        final RequestParameter parameter) {
+      this.field = field;
+      this.name = parameter.value();
+      this.required = parameter.required();
+      this.adapterType = parameter.adapter();
+      this.multiValued = field.getType().isArray()
+          || Iterable.class.isAssignableFrom(field.getType());
+
+      Method method = null;
+      IntrospectionException error = null;
+
+      if (!Modifier.isPublic(field.getModifiers())) {
+        try {
+          // a final field has no setter, and would fail to be introspected otherwise
+          method = Modifier.isFinal(field.getModifiers())
+              ? BeanUtil.findGetterReadOnly(field.getName(), type)
+              : BeanUtil.findGetter(field.getName(), type);
+        } catch (final IntrospectionException e) {
+          // reported when the field is read, as it was before it was cached
+          error = e;
+        }
+      }
+
+      this.getter = method;
+      this.getterError = error;
+    }
+
+    /**
+     * Returns the parameter name.
+     *
+     * @return the name
+     */
+    String getName() {
+      return name;
+    }
+
+    /**
+     * Returns whether the field holds an array or an {@link Iterable}, sent as one value per
+     * element.
+     *
+     * @return <code>true</code> if the parameter is multi-valued, <code>false</code> otherwise
+     */
+    boolean isMultiValued() {
+      return multiValued;
+    }
+
+    /**
+     * Returns the value of the field of the given object converted by the adapter, or an empty
+     * string if it is blank.
+     *
+     * @param target the object
+     *
+     * @return the value
+     *
+     * @throws HttpRequestTranslationException if the parameter is required but blank, or could not
+     *                                         be read or converted
+     */
+    String value(final Object target) {
+      final Object obj = read(target);
+      final String value = obj != null ? convert(obj) : null;
+
+      if (TextUtils.isBlank(value)) {
+        if (required) {
+          throw missing();
+        }
+        return "";
+      }
+
+      return value;
+    }
+
+    /**
+     * Returns each non-null element of the array or {@link Iterable} held by the field of the
+     * given object, converted by the adapter.
+     *
+     * @param target the object
+     *
+     * @return the values
+     *
+     * @throws HttpRequestTranslationException if the parameter is required but has no non-blank
+     *                                         value, or could not be read or converted
+     */
+    List<String> values(final Object target) {
+      final Object obj = read(target);
+      final List<String> values = new ArrayList<>();
+      boolean blank = true;
+
+      if (obj instanceof Iterable) {
+        for (final Object element : (Iterable<?>) obj) {
+          if (element != null) {
+            blank &= add(values, element);
+          }
+        }
+      } else if (obj != null) {
+        final int length = Array.getLength(obj);
+        for (int i = 0; i < length; i++) {
+          final Object element = Array.get(obj, i);
+          if (element != null) {
+            blank &= add(values, element);
+          }
+        }
+      }
+
+      if (required && blank) {
+        throw missing();
+      }
+
+      return values.isEmpty() ? Collections.emptyList() : values;
+    }
+
+    /**
+     * Adds the given element, converted, to the given values.
+     *
+     * @return <code>true</code> if the converted element is blank, <code>false</code> otherwise
+     */
+    private boolean add(final List<String> values, final Object element) {
+      final String value = convert(element);
+      values.add(value);
+      return TextUtils.isBlank(value);
+    }
+
+    private Object read(final Object target) {
+      try {
+        if (getter != null) {
+          return getter.invoke(target);
+        } else if (getterError != null) {
+          throw getterError;
+        } else {
+          return field.get(target);
+        }
+      } catch (IntrospectionException | IllegalAccessException | IllegalArgumentException
+               | InvocationTargetException e) {
+        throw new HttpRequestTranslationException(
+            "unable to translate request parameter fields", e);
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private String convert(final Object obj) {
+      return ((RequestParameterAdapter<Object>) adapter(adapterType)).convert(obj);
+    }
+
+    private HttpRequestTranslationException missing() {
+      return new HttpRequestTranslationException(String.format(
+          "request parameter %s was required, but no value was found", name));
+    }
+  }
+}
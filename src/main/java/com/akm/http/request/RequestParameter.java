@@ -50,6 +50,9 @@ public @interface RequestParameter {
   /**
    * The adapter class to convert the request parameter value. By default, the
    * <code>toString()</code> method of the Object is used.
+   * <p>
+   * A single instance of each adapter class is created and shared by all fields and threads using
+   * it, so adapters must be stateless.
    *
    * @return the <code>RequestParameterAdapter</code> class
    */
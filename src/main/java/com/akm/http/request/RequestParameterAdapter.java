@@ -4,6 +4,9 @@ import com.akm.http.exception.HttpRequestTranslationException;
 
 /**
  * Adapts a type to a String for request parameter mapping.
+ * <p>
+ * Implementations must have a no-argument constructor. They are instantiated once, on first use,
+ * and the instance is shared by every field and thread, so they must be stateless.
  *
  * @param <T> the type to be converted
  *
@@ -0,0 +1,265 @@
+package com.akm.http.request;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.hc.core5.util.Args;
+
+/**
+ * An ordered collection of request parameters in which a name may have more than one value.
+ * <p>
+ * Parameters are sent in the order their names were first added, with the values of a name in the
+ * order they were added, so a batch lookup can be made in a single request:
+ *
+ * <pre>
+ * RequestParameters parameters = new RequestParameters()
+ *     .addAll("id", ids)
+ *     .add("fields", "name,price");
+ *
+ * http.get(url, headers, parameters); // ?id=1&amp;id=2&amp;id=3&amp;fields=name%2Cprice
+ * </pre>
+ * <p>
+ * Since it is also a <code>Map</code> of each name to its first value, it can be passed to any
+ * method of {@link com.akm.http.HttpService} that takes parameters, all of its values being sent.
+ * Through the <code>Map</code> view, {@link #put(String, String)} replaces every value of a name
+ * and {@link #remove(Object)} removes them all.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author Amir
+ * @see RequestObject#translate()
+ * @since 1.1
+ */
+public final class RequestParameters extends AbstractMap<String, String> {
+
+  private final Map<String, List<String>> values = new LinkedHashMap<>();
+  private final Set<Map.Entry<String, String>> entries = new EntrySet();
+
+  /**
+   * Creates an empty collection of parameters.
+   */
+  public RequestParameters() {
+  }
+
+  /**
+   * Creates a collection holding the given parameters, in the iteration order of the map.
+   *
+   * @param parameters the parameters
+   */
+  public RequestParameters(final Map<String, String> parameters) {
+    Args.notNull(parameters, "parameters");
+
+    if (parameters instanceof RequestParameters) {
+      ((RequestParameters) parameters).values.forEach(
+          (name, list) -> values.put(name, new ArrayList<>(list)));
+    } else {
+      parameters.forEach(this::add);
+    }
+  }
+
+  /**
+   * Adds a value to the given parameter, after any values it already has.
+   *
+   * @param name  the parameter name
+   * @param value the parameter value, or null to send the name alone
+   *
+   * @return these parameters
+   */
+  public RequestParameters add(final String name, final String value) {
+    Args.notNull(name, "name");
+    values.computeIfAbsent(name, k -> new ArrayList<>(1)).add(value);
+    return this;
+  }
+
+  /**
+   * Adds the given values to the given parameter, after any values it already has.
+   *
+   * @param name   the parameter name
+   * @param values the parameter values
+   *
+   * @return these parameters
+   */
+  public RequestParameters addAll(final String name, final Iterable<String> values) {
+    Args.notNull(name, "name");
+    Args.notNull(values, "values");
+
+    final Iterator<String> it = values.iterator();
+    if (it.hasNext()) {
+      final List<String> list = this.values.computeIfAbsent(name, k -> new ArrayList<>());
+      it.forEachRemaining(list::add);
+    }
+
+    return this;
+  }
+
+  /**
+   * Sets the given parameter to a single value, replacing any values it has.
+   *
+   * @param name  the parameter name
+   * @param value the parameter value, or null to send the name alone
+   *
+   * @return these parameters
+   */
+  public RequestParameters set(final String name, final String value) {
+    put(name, value);
+    return this;
+  }
+
+  /**
+   * Returns all values of the given parameter, in the order they were added.
+   *
+   * @param name the parameter name
+   *
+   * @return the values, or an empty list if the parameter is not set
+   */
+  public List<String> getAll(final String name) {
+    final List<String> list = values.get(name);
+    return list != null ? Collections.unmodifiableList(list) : Collections.emptyList();
+  }
+
+  /**
+   * Returns the total number of values of all parameters, which is the number of parameters sent.
+   *
+   * @return the number of values
+   */
+  public int valueCount() {
+    int count = 0;
+
+    for (final List<String> list : values.values()) {
+      count += list.size();
+    }
+
+    return count;
+  }
+
+  /**
+   * Returns the first value of the given parameter.
+   *
+   * @param name the parameter name
+   *
+   * @return the first value, or null if the parameter is not set
+   */
+  @Override
+  public String get(final Object name) {
+    final List<String> list = values.get(name);
+    return list != null ? list.get(0) : null;
+  }
+
+  @Override
+  public boolean containsKey(final Object name) {
+    return values.containsKey(name);
+  }
+
+  /**
+   * Returns the number of parameter names.
+   *
+   * @return the number of names
+   *
+   * @see #valueCount()
+   */
+  @Override
+  public int size() {
+    return values.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return values.isEmpty();
+  }
+
+  /**
+   * Sets the given parameter to a single value, replacing any values it has.
+   *
+   * @param name  the parameter name
+   * @param value the parameter value, or null to send the name alone
+   *
+   * @return the previous first value of the parameter, or null if it was not set
+   */
+  @Override
+  public String put(final String name, final String value) {
+    Args.notNull(name, "name");
+
+    final List<String> list = new ArrayList<>(1);
+    list.add(value);
+    final List<String> previous = values.put(name, list);
+    return previous != null ? previous.get(0) : null;
+  }
+
+  /**
+   * Removes every value of the given parameter.
+   *
+   * @param name the parameter name
+   *
+   * @return the previous first value of the parameter, or null if it was not set
+   */
+  @Override
+  public String remove(final Object name) {
+    final List<String> previous = values.remove(name);
+    return previous != null ? previous.get(0) : null;
+  }
+
+  @Override
+  public void clear() {
+    values.clear();
+  }
+
+  @Override
+  public Set<String> keySet() {
+    return values.keySet();
+  }
+
+  /**
+   * Returns a view of each parameter name mapped to its first value.
+   *
+   * @return the entry set
+   */
+  @Override
+  public Set<Map.Entry<String, String>> entrySet() {
+    return entries;
+  }
+
+  @Override
+  public String toString() {
+    return values.toString();
+  }
+
+  /**
+   * View of each name mapped to its first value.
+   */
+  private final class EntrySet extends AbstractSet<Map.Entry<String, String>> {
+
+    @Override
+    public Iterator<Map.Entry<String, String>> iterator() {
+      final Iterator<Map.Entry<String, List<String>>> it = values.entrySet().iterator();
+
+      return new Iterator<Map.Entry<String, String>>() {
+        @Override
+        public boolean hasNext() {
+          return it.hasNext();
+        }
+
+        @Override
+        public Map.Entry<String, String> next() {
+          final Map.Entry<String, List<String>> e = it.next();
+          return new SimpleImmutableEntry<>(e.getKey(), e.getValue().get(0));
+        }
+
+        @Override
+        public void remove() {
+          it.remove();
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return values.size();
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package com.akm.http.sse;
+
+/**
+ * Receives the events of an {@link EventSource}.
+ * <p>
+ * All methods are called from the thread reading the stream, so they should return quickly; an
+ * event is not read from the connection until the previous one has been handled.
+ *
+ * @author Amir
+ * @see EventSource#open(EventHandler)
+ * @since 1.1
+ */
+@FunctionalInterface
+public interface EventHandler {
+
+  /**
+   * Handles an event.
+   *
+   * @param event the event
+   */
+  void onEvent(ServerSentEvent event);
+
+  /**
+   * Handles the failure of a connection. The source reconnects after the retry delay.
+   *
+   * @param error the error
+   */
+  default void onError(final Throwable error) {
+  }
+
+  /**
+   * Handles the end of the source. No further methods are called.
+   *
+   * @param cause the error that stopped the source, or null if it was closed, or the server asked
+   *              it not to reconnect with a 204 response
+   */
+  default void onClosed(final Throwable cause) {
+  }
+}
@@ -0,0 +1,309 @@
+package com.akm.http.sse;
+
+import com.akm.http.HttpService;
+import com.akm.http.HttpStreamResponse;
+import com.akm.http.exception.HttpServiceException;
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.util.Args;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A client of a server-sent events stream.
+ * <p>
+ * Once opened, the source keeps a connection to the url open on a background thread, parsing
+ * events as they arrive and passing them to an {@link EventHandler} or a {@link Flow.Publisher}.
+ * When the connection ends or fails, the source reconnects after the retry delay, which the server
+ * may change with a <code>retry:</code> field, sending the id of the last event received in a
+ * <code>Last-Event-ID</code> header so that the server can resume the stream:
+ *
+ * <pre>
+ * try (EventSource source = new EventSource(http, url, headers)) {
+ *   source.open(event -&gt; System.out.println(event.getData()));
+ *   ...
+ * }
+ * </pre>
+ * <p>
+ * The source stops for good when it is closed, when the server answers with a 204 status, or when
+ * the server answers with any other status than 200 or a content type other than
+ * <code>text/event-stream</code>.
+ *
+ * @author Amir
+ * @see ServerSentEvent
+ * @since 1.1
+ */
+public final class EventSource implements Closeable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(EventSource.class);
+
+  /**
+   * The default delay before reconnecting, 3 seconds.
+   */
+  public static final Duration DEFAULT_RETRY = Duration.ofSeconds(3);
+
+  private static final String EVENT_STREAM = "text/event-stream";
+
+  private final HttpService service;
+  private final String url;
+  private final Map<String, String> headers;
+
+  private volatile Duration retry = DEFAULT_RETRY;
+  private volatile String lastEventId;
+  private volatile boolean closed;
+  private volatile HttpStreamResponse response;
+  private Thread thread;
+
+  /**
+   * Constructs a new <code>EventSource</code> reading the events of the given url.
+   *
+   * @param service the service executing the requests
+   * @param url     the url of the event stream
+   * @param headers the map of headers to send with each request, may be null
+   */
+  public EventSource(final HttpService service, final String url,
+      final Map<String, String> headers) {
+    this.service = Args.notNull(service, "service");
+    this.url = Args.notBlank(url, "url");
+    this.headers = headers != null ? new HashMap<>(headers) : Collections.emptyMap();
+  }
+
+  /**
+   * Opens the source, passing its events to the given handler from a background thread.
+   *
+   * @param handler the event handler
+   *
+   * @throws IllegalStateException if the source was already opened
+   */
+  public synchronized void open(final EventHandler handler) {
+    Args.notNull(handler, "handler");
+
+    if (thread != null) {
+      throw new IllegalStateException("event source already opened");
+    }
+
+    thread = new Thread(() -> run(handler), "event-source");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Opens the source, publishing its events to the subscribers of the returned publisher. Slow
+   * subscribers hold back reading from the connection once their buffer is full. The publisher is
+   * completed when the source stops, exceptionally if it stopped because of an error.
+   *
+   * @return the event publisher
+   *
+   * @throws IllegalStateException if the source was already opened
+   */
+  public Flow.Publisher<ServerSentEvent> open() {
+    final SubmissionPublisher<ServerSentEvent> publisher = new SubmissionPublisher<>();
+
+    open(new EventHandler() {
+      @Override
+      public void onEvent(final ServerSentEvent event) {
+        publisher.submit(event);
+      }
+
+      @Override
+      public void onClosed(final Throwable cause) {
+        if (cause != null) {
+          publisher.closeExceptionally(cause);
+        } else {
+          publisher.close();
+        }
+      }
+    });
+
+    return publisher;
+  }
+
+  /**
+   * Returns the id of the last event received, sent in the <code>Last-Event-ID</code> header when
+   * reconnecting.
+   *
+   * @return the last event id, or null if none was received
+   */
+  public String getLastEventId() {
+    return lastEventId;
+  }
+
+  /**
+   * Sets the id of the last event received, to resume a stream from an event received by an earlier
+   * source. This must be set before the source is opened.
+   *
+   * @param lastEventId the last event id
+   */
+  public void setLastEventId(final String lastEventId) {
+    this.lastEventId = lastEventId;
+  }
+
+  /**
+   * Returns the delay before reconnecting. This is {@link #DEFAULT_RETRY} unless set, or changed by
+   * the server.
+   *
+   * @return the retry delay
+   */
+  public Duration getRetry() {
+    return retry;
+  }
+
+  /**
+   * Sets the delay before reconnecting. The server may still change it.
+   *
+   * @param retry the retry delay
+   */
+  public void setRetry(final Duration retry) {
+    Args.notNull(retry, "retry");
+    Args.check(!retry.isNegative(), "retry must not be negative");
+    this.retry = retry;
+  }
+
+  /**
+   * Returns whether this source is closed.
+   *
+   * @return <code>true</code> if the source is closed, <code>false</code> otherwise
+   */
+  public boolean isClosed() {
+    return closed;
+  }
+
+  /**
+   * Closes this source, shutting down its connection. The handler is notified once the background
+   * thread has stopped.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    closeResponse();
+
+    synchronized (this) {
+      if (thread != null) {
+        thread.interrupt();
+      }
+    }
+  }
+
+  /**
+   * Reads the stream until the source is closed or stopped by the server.
+   *
+   * @param handler the event handler
+   */
+  private void run(final EventHandler handler) {
+    final EventStreamParser parser = new EventStreamParser(lastEventId,
+        millis -> retry = Duration.ofMillis(millis));
+    Throwable cause = null;
+
+    while (!closed) {
+      try (HttpStreamResponse resp = connect()) {
+        if (resp.getStatusCode() == 204) {
+          LOGGER.info("event stream {} ended by the server", url);
+          break;
+        } else if (resp.getStatusCode() != 200 || !isEventStream(resp)) {
+          cause = new HttpServiceException(String.format(
+              "unexpected event stream response %s with content type %s", resp.getStatusLine(),
+              resp.getHeader(HttpHeaders.CONTENT_TYPE)));
+          break;
+        }
+
+        parser.parse(resp.getInputStream(), event -> {
+          lastEventId = parser.getLastEventId();
+          handler.onEvent(event);
+        });
+        lastEventId = parser.getLastEventId();
+        LOGGER.info("event stream {} ended, reconnecting", url);
+      } catch (final HttpServiceException | IOException e) {
+        if (closed) {
+          break;
+        }
+        LOGGER.warn("event stream {} failed, reconnecting", url, e);
+        handler.onError(e);
+      } catch (final RuntimeException e) {
+        LOGGER.error("event handler of stream {} failed", url, e);
+        cause = e;
+        break;
+      } finally {
+        response = null;
+      }
+
+      try {
+        Thread.sleep(retry.toMillis());
+      } catch (final InterruptedException e) {
+        break;
+      }
+    }
+
+    closed = true;
+    closeResponse();
+    handler.onClosed(cause);
+  }
+
+  /**
+   * Opens a connection to the stream, sending the last event id if there is one, and publishes it
+   * as the current response.
+   *
+   * @return the response
+   *
+   * @throws HttpServiceException if the request could not be executed
+   */
+  private HttpStreamResponse connect() throws HttpServiceException {
+    final Map<String, String> request = new HashMap<>(headers);
+    request.put(HttpHeaders.ACCEPT, EVENT_STREAM);
+    request.put(HttpHeaders.CACHE_CONTROL, "no-cache");
+
+    final String id = lastEventId;
+    if (id != null && !id.isEmpty()) {
+      request.put("Last-Event-ID", id);
+    }
+
+    final HttpStreamResponse resp = service.stream(url, request, Collections.emptyMap());
+
+    // publish the response before checking whether the source was closed: close() sets the flag
+    // before reading the response, so either it closes the response or this check does
+    response = resp;
+    if (closed) {
+      closeQuietly(resp);
+    }
+
+    return resp;
+  }
+
+  /**
+   * Returns whether the given response has the event stream content type.
+   *
+   * @param resp the response
+   *
+   * @return <code>true</code> if the content type is <code>text/event-stream</code>
+   */
+  private static boolean isEventStream(final HttpStreamResponse resp) {
+    final String type = resp.getHeader(HttpHeaders.CONTENT_TYPE);
+    return type != null && type.trim().toLowerCase(Locale.ROOT).startsWith(EVENT_STREAM);
+  }
+
+  /**
+   * Closes the current response, if any, aborting a read in progress.
+   */
+  private void closeResponse() {
+    final HttpStreamResponse resp = response;
+
+    if (resp != null) {
+      closeQuietly(resp);
+    }
+  }
+
+  private static void closeQuietly(final HttpStreamResponse resp) {
+    try {
+      resp.close();
+    } catch (final IOException e) {
+      LOGGER.debug("error closing event stream", e);
+    }
+  }
+}
@@ -0,0 +1,142 @@
+package com.akm.http.sse;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Internal incremental parser of the <code>text/event-stream</code> format.
+ * <p>
+ * The stream is read one line at a time, so events are dispatched as soon as their terminating
+ * blank line arrives and the stream is never buffered as a whole. The last event id is kept across
+ * streams, as a reconnected stream continues from it.
+ *
+ * @author Amir
+ * @since 1.1
+ */
+final class EventStreamParser {
+
+  private final LongConsumer retry;
+  private final StringBuilder data = new StringBuilder();
+  private String event;
+  private volatile String lastEventId;
+
+  /**
+   * Creates a parser.
+   *
+   * @param lastEventId the initial last event id, may be null
+   * @param retry       the consumer of reconnection times, in milliseconds, set by the stream
+   */
+  EventStreamParser(final String lastEventId, final LongConsumer retry) {
+    this.lastEventId = lastEventId;
+    this.retry = retry;
+  }
+
+  /**
+   * Returns the last event id set by the streams parsed so far.
+   *
+   * @return the last event id, or null if none was set
+   */
+  String getLastEventId() {
+    return lastEventId;
+  }
+
+  /**
+   * Parses the given stream until its end, passing each dispatched event to the given consumer. An
+   * event left incomplete at the end of the stream is discarded.
+   *
+   * @param in     the stream
+   * @param events the event consumer
+   *
+   * @throws IOException if the stream could not be read
+   */
+  void parse(final InputStream in, final Consumer<ServerSentEvent> events) throws IOException {
+    final BufferedReader reader = new BufferedReader(
+        new InputStreamReader(in, StandardCharsets.UTF_8));
+    reset();
+
+    String line = reader.readLine();
+    if (line != null && !line.isEmpty() && line.charAt(0) == '\uFEFF') {
+      line = line.substring(1);
+    }
+
+    while (line != null) {
+      if (line.isEmpty()) {
+        dispatch(events);
+      } else if (line.charAt(0) != ':') {
+        final int colon = line.indexOf(':');
+        if (colon < 0) {
+          field(line, "");
+        } else {
+          final int start = colon + 1 < line.length() && line.charAt(colon + 1) == ' '
+              ? colon + 2 : colon + 1;
+          field(line.substring(0, colon), line.substring(start));
+        }
+      }
+
+      line = reader.readLine();
+    }
+  }
+
+  /**
+   * Processes a field of the current event.
+   *
+   * @param name  the field name
+   * @param value the field value
+   */
+  private void field(final String name, final String value) {
+    switch (name) {
+      case "event":
+        event = value;
+        break;
+      case "data":
+        data.append(value).append('\n');
+        break;
+      case "id":
+        if (value.indexOf('\0') < 0) {
+          lastEventId = value;
+        }
+        break;
+      case "retry":
+        if (!value.isEmpty() && value.chars().allMatch(c -> c >= '0' && c <= '9')) {
+          try {
+            retry.accept(Long.parseLong(value));
+          } catch (final NumberFormatException e) {
+            // too large to be meaningful, ignore it
+          }
+        }
+        break;
+      default:
+        // unknown fields are ignored
+        break;
+    }
+  }
+
+  /**
+   * Dispatches the current event, unless it has no data, and starts a new one.
+   *
+   * @param events the event consumer
+   */
+  private void dispatch(final Consumer<ServerSentEvent> events) {
+    if (data.length() > 0) {
+      data.setLength(data.length() - 1);
+      events.accept(new ServerSentEvent(lastEventId,
+          event != null && !event.isEmpty() ? event : ServerSentEvent.DEFAULT_EVENT,
+          data.toString()));
+    }
+
+    reset();
+  }
+
+  /**
+   * Discards the current event.
+   */
+  private void reset() {
+    data.setLength(0);
+    event = null;
+  }
+}
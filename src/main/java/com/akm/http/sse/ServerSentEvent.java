@@ -0,0 +1,60 @@
+package com.akm.http.sse;
+
+/**
+ * An event received from a server-sent events stream.
+ *
+ * @author Amir
+ * @see EventSource
+ * @since 1.1
+ */
+public final class ServerSentEvent {
+
+  /**
+   * The type of events whose stream did not name one.
+   */
+  public static final String DEFAULT_EVENT = "message";
+
+  private final String id;
+  private final String event;
+  private final String data;
+
+  ServerSentEvent(final String id, final String event, final String data) {
+    this.id = id;
+    this.event = event;
+    this.data = data;
+  }
+
+  /**
+   * Returns the last event id of the stream when this event was dispatched.
+   *
+   * @return the event id, or null if the stream has not set one
+   */
+  public String getId() {
+    return id;
+  }
+
+  /**
+   * Returns the type of this event, {@value #DEFAULT_EVENT} unless set by an <code>event:</code>
+   * field.
+   *
+   * @return the event type
+   */
+  public String getEvent() {
+    return event;
+  }
+
+  /**
+   * Returns the data of this event. The values of multiple <code>data:</code> fields are joined by
+   * line feeds.
+   *
+   * @return the event data
+   */
+  public String getData() {
+    return data;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("ServerSentEvent [id=%s, event=%s, data=%s]", id, event, data);
+  }
+}
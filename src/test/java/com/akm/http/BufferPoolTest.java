@@ -0,0 +1,48 @@
+package com.akm.http;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Provides test cases for {@link BufferPool}.
+ *
+ * @author Amir
+ * @since 1.1
+ */
+public class BufferPoolTest {
+
+  @Test
+  public final void testSizeClasses() {
+    final BufferPool<byte[]> pool = new BufferPool<>(byte[]::new, b -> b.length);
+    assertAll("size classes",
+        () -> assertEquals(BufferPool.MIN_SIZE, pool.acquire(1).length),
+        () -> assertEquals(BufferPool.MIN_SIZE, pool.acquire(BufferPool.MIN_SIZE).length),
+        () -> assertEquals(2 * BufferPool.MIN_SIZE,
+            pool.acquire(BufferPool.MIN_SIZE + 1).length),
+        () -> assertEquals(BufferPool.MAX_SIZE, pool.acquire(BufferPool.MAX_SIZE).length),
+        () -> assertEquals(BufferPool.MAX_SIZE + 1,
+            pool.acquire(BufferPool.MAX_SIZE + 1).length));
+  }
+
+  @Test
+  public final void testReuse() {
+    final BufferPool<byte[]> pool = new BufferPool<>(byte[]::new, b -> b.length);
+    final byte[] buffer = pool.acquire(100_000);
+    pool.release(buffer);
+    final byte[] reused = pool.acquire(70_000);
+
+    final byte[] large = pool.acquire(BufferPool.MAX_SIZE + 1);
+    pool.release(large);
+    final byte[] odd = new byte[1000];
+    pool.release(odd);
+
+    assertAll("reuse",
+        () -> assertSame(buffer, reused),
+        () -> assertNotSame(large, pool.acquire(BufferPool.MAX_SIZE + 1)),
+        () -> assertNotSame(odd, pool.acquire(1000)));
+  }
+}
@@ -0,0 +1,121 @@
+package com.akm.http;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.akm.http.exception.HttpResponseTooLargeException;
+import com.akm.http.exception.HttpServiceException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Provides test cases for typed response body handlers.
+ *
+ * @author Amir
+ * @since 1.1
+ */
+public class HttpBodyHandlerTest {
+
+  @Test
+  public final void testString() throws IOException, HttpServiceException {
+    try (TestServer server = new TestServer()) {
+      server.handle("/latin", exchange -> {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=ISO-8859-1");
+        TestServer.respond(exchange, 200, "café".getBytes(StandardCharsets.ISO_8859_1));
+      });
+
+      final HttpBodyResponse<String> resp = new HttpService().get(server.url("/latin"),
+          new HashMap<>(), new HashMap<>(), BodyHandler.ofString());
+      assertAll("string",
+          () -> TestUtils.statusCode(200, resp.getStatusCode()),
+          () -> assertEquals("café", resp.getBody()));
+    }
+  }
+
+  @Test
+  public final void testLines() throws IOException, HttpServiceException {
+    try (TestServer server = new TestServer()) {
+      server.handle("/lines", exchange -> TestServer.respond(exchange, 200,
+          "a\nb\r\nc".getBytes(StandardCharsets.UTF_8)));
+
+      final List<String> lines = new ArrayList<>();
+      final HttpBodyResponse<Long> resp = new HttpService().post(server.url("/lines"),
+          new HashMap<>(), new HashMap<>(), "{}", BodyHandler.ofLines(lines::add));
+      assertAll("lines",
+          () -> assertEquals(3, resp.getBody()),
+          () -> assertEquals(List.of("a", "b", "c"), lines));
+    }
+  }
+
+  @Test
+  public final void testChecksum() throws IOException, HttpServiceException {
+    final byte[] body = new byte[256 * 1024];
+    new Random(3).nextBytes(body);
+    final CRC32 expected = new CRC32();
+    expected.update(body);
+
+    try (TestServer server = new TestServer()) {
+      server.handle("/bytes", exchange -> TestServer.respond(exchange, 200, body));
+
+      final HttpBodyResponse<Long> resp = new HttpService().get(server.url("/bytes"),
+          new HashMap<>(), new HashMap<>(), (head, in) -> {
+            final CheckedInputStream checked = new CheckedInputStream(in, new CRC32());
+            checked.transferTo(OutputStream.nullOutputStream());
+            return checked.getChecksum().getValue();
+          });
+      assertEquals(expected.getValue(), resp.getBody());
+    }
+  }
+
+  @Test
+  public final void testUnreadBodyDiscarded() throws IOException, HttpServiceException {
+    try (TestServer server = new TestServer()) {
+      server.handle("/endless", exchange -> {
+        exchange.sendResponseHeaders(200, 0);
+        final byte[] chunk = new byte[8192];
+
+        try (OutputStream out = exchange.getResponseBody()) {
+          while (true) {
+            out.write(chunk);
+          }
+        } catch (final IOException e) {
+          // client went away
+        }
+      });
+
+      final HttpBodyResponse<Integer> resp = new HttpService().get(server.url("/endless"),
+          new HashMap<>(), new HashMap<>(), (head, in) -> in.readNBytes(100).length);
+      assertEquals(100, resp.getBody());
+    }
+  }
+
+  @Test
+  public final void testTooLarge() throws IOException {
+    final HttpServiceConfig config = new HttpServiceConfig();
+    config.setMaxBodySize(1000);
+
+    try (TestServer server = new TestServer()) {
+      server.handle("/chunked", exchange -> {
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(new byte[2000]);
+        }
+      });
+
+      final HttpServiceException e = assertThrows(HttpServiceException.class,
+          () -> new HttpService(config).get(server.url("/chunked"), new HashMap<>(),
+              new HashMap<>(), BodyHandler.ofByteArray()));
+      assertInstanceOf(HttpResponseTooLargeException.class, e.getCause().getCause());
+    }
+  }
+}
@@ -0,0 +1,139 @@
+package com.akm.http;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.akm.http.exception.HttpResponseTooLargeException;
+import com.akm.http.exception.HttpServiceException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Provides test cases for response body size limits.
+ *
+ * @author Amir
+ * @since 1.1
+ */
+public class HttpBodyLimitTest {
+
+  private static final byte[] BODY = new byte[64 * 1024];
+
+  static {
+    new Random(7).nextBytes(BODY);
+  }
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  public final void testInMemory() throws IOException, HttpServiceException {
+    try (TestServer server = server()) {
+      final HttpResponse resp = service(BODY.length, Long.MAX_VALUE)
+          .get(server.url("/fixed"), new HashMap<>(), new HashMap<>());
+      assertAll("in memory",
+          () -> TestUtils.statusCode(200, resp.getStatusCode()),
+          () -> assertEquals(BODY.length, resp.getBodySize()),
+          () -> assertArrayEquals(BODY, resp.getBytes(), "body differs"),
+          () -> assertEquals(0, countFiles(), "body written to disk"));
+    }
+  }
+
+  @Test
+  public final void testSpill() throws IOException, HttpServiceException {
+    try (TestServer server = server()) {
+      for (final String path : new String[]{"/fixed", "/chunked"}) {
+        final HttpResponse resp = service(1024, Long.MAX_VALUE)
+            .get(server.url(path), new HashMap<>(), new HashMap<>());
+        final byte[] streamed;
+        try (InputStream in = resp.getInputStream()) {
+          streamed = in.readAllBytes();
+        }
+        final ByteBuffer buffer = resp.asByteBuffer();
+        final byte[] mapped = new byte[buffer.remaining()];
+        buffer.get(mapped);
+
+        assertAll("spill " + path,
+            () -> TestUtils.statusCode(200, resp.getStatusCode()),
+            () -> assertEquals(BODY.length, resp.getBodySize()),
+            () -> assertEquals(1, countFiles(), "body not written to disk"),
+            () -> assertArrayEquals(BODY, streamed, "streamed body differs"),
+            () -> assertArrayEquals(BODY, mapped, "mapped body differs"),
+            () -> assertArrayEquals(BODY, resp.getBytes(), "body differs"));
+
+        try (Stream<Path> files = Files.list(tempDir)) {
+          for (final Path file : (Iterable<Path>) files::iterator) {
+            Files.delete(file);
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public final void testTooLarge() throws IOException {
+    try (TestServer server = server()) {
+      for (final String path : new String[]{"/fixed", "/chunked"}) {
+        final HttpServiceException e = assertThrows(HttpServiceException.class,
+            () -> service(1024, BODY.length - 1)
+                .get(server.url(path), new HashMap<>(), new HashMap<>()));
+        assertAll("too large " + path,
+            () -> assertInstanceOf(HttpResponseTooLargeException.class, e.getCause().getCause()),
+            () -> assertEquals(0, countFiles(), "temporary file not deleted"));
+      }
+    }
+  }
+
+  @Test
+  public final void testTooLargeInMemory() throws IOException {
+    try (TestServer server = server()) {
+      final HttpServiceException e = assertThrows(HttpServiceException.class,
+          () -> service(BODY.length * 2, BODY.length - 1)
+              .get(server.url("/chunked"), new HashMap<>(), new HashMap<>()));
+      assertAll("too large in memory",
+          () -> assertInstanceOf(HttpResponseTooLargeException.class, e.getCause().getCause()),
+          () -> assertEquals(0, countFiles(), "body written to disk"));
+    }
+  }
+
+  private HttpService service(final long maxInMemoryBodySize, final long maxBodySize) {
+    final HttpServiceConfig config = new HttpServiceConfig();
+    config.setMaxInMemoryBodySize(maxInMemoryBodySize);
+    config.setMaxBodySize(maxBodySize);
+    config.setTempDirectory(tempDir);
+    return new HttpService(config);
+  }
+
+  private long countFiles() throws IOException {
+    try (Stream<Path> files = Files.list(tempDir)) {
+      return files.count();
+    }
+  }
+
+  private static TestServer server() throws IOException {
+    return new TestServer()
+        .handle("/fixed", exchange -> {
+          exchange.sendResponseHeaders(200, BODY.length);
+          try (OutputStream out = exchange.getResponseBody()) {
+            out.write(BODY);
+          }
+        })
+        .handle("/chunked", exchange -> {
+          exchange.sendResponseHeaders(200, 0);
+          try (OutputStream out = exchange.getResponseBody()) {
+            out.write(BODY);
+          }
+        });
+  }
+}
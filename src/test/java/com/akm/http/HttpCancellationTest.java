@@ -0,0 +1,68 @@
+package com.akm.http;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.akm.http.exception.HttpServiceException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Provides test cases for cancelling in-flight HTTP requests.
+ *
+ * @author Amir
+ * @since 1.1
+ */
+public class HttpCancellationTest {
+
+  @Test
+  public final void testInterruptAbortsTransfer() throws IOException, InterruptedException {
+    final CountDownLatch streaming = new CountDownLatch(1);
+    final CountDownLatch aborted = new CountDownLatch(1);
+
+    try (TestServer server = new TestServer()) {
+      // stream an endless body until the client goes away
+      server.handle("/endless", exchange -> {
+        exchange.sendResponseHeaders(200, 0);
+        final byte[] chunk = new byte[1024];
+
+        try (OutputStream out = exchange.getResponseBody()) {
+          while (true) {
+            out.write(chunk);
+            out.flush();
+            streaming.countDown();
+            Thread.sleep(5);
+          }
+        } catch (final IOException | InterruptedException e) {
+          aborted.countDown();
+        }
+      });
+
+      final HttpService http = new HttpService();
+      final AtomicReference<Exception> error = new AtomicReference<>();
+      final Thread caller = new Thread(() -> {
+        try {
+          http.get(server.url("/endless"), new HashMap<>(), new HashMap<>());
+        } catch (final HttpServiceException e) {
+          error.set(e);
+        }
+      });
+      caller.start();
+
+      assertTrue(streaming.await(5, TimeUnit.SECONDS), "server never started streaming");
+      caller.interrupt();
+      caller.join(TimeUnit.SECONDS.toMillis(5));
+
+      assertAll("cancelled request",
+          () -> assertFalse(caller.isAlive(), "caller still waiting for response"),
+          () -> assertTrue(error.get() instanceof HttpServiceException, "no exception thrown"),
+          () -> assertTrue(aborted.await(5, TimeUnit.SECONDS), "transfer was not aborted"));
+    }
+  }
+}
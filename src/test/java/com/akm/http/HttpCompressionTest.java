@@ -0,0 +1,216 @@
+package com.akm.http;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.akm.http.exception.HttpServiceException;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Provides test cases for compressed content negotiation and request compression.
+ *
+ * @author Amir
+ * @since 1.1
+ */
+public class HttpCompressionTest {
+
+  private static final String JSON;
+
+  static {
+    final StringBuilder sb = new StringBuilder("[");
+    for (int i = 0; i < 2000; i++) {
+      sb.append(i > 0 ? "," : "").append("{\"id\":").append(i).append(",\"name\":\"item\"}");
+    }
+    JSON = sb.append(']').toString();
+  }
+
+  @Test
+  public final void testGzip() throws IOException, HttpServiceException {
+    final AtomicReference<String> acceptEncoding = new AtomicReference<>();
+
+    try (TestServer server = server(acceptEncoding)) {
+      final HttpService service = new HttpService();
+      final HttpResponse resp = service.get(server.url("/gzip"), new HashMap<>(),
+          new HashMap<>());
+      final HttpServiceMetrics metrics = service.getMetrics();
+      assertAll("gzip",
+          () -> TestUtils.statusCode(200, resp.getStatusCode()),
+          () -> assertEquals("gzip, deflate", acceptEncoding.get()),
+          () -> assertEquals(JSON, resp.getData()),
+          () -> assertNull(resp.getHeader("Content-Encoding")),
+          () -> assertEquals(1, metrics.getCompressedResponseCount()),
+          () -> assertEquals(JSON.length(), metrics.getDecompressedResponseBytes()),
+          () -> assertTrue(metrics.getCompressedResponseBytes() < JSON.length() / 4,
+              "body not compressed"),
+          () -> assertTrue(metrics.getResponseCompressionRatio() > 4, "ratio too low"));
+    }
+  }
+
+  @Test
+  public final void testDeflateStream() throws IOException, HttpServiceException {
+    try (TestServer server = server(new AtomicReference<>())) {
+      final HttpService service = new HttpService();
+      try (HttpStreamResponse resp = service.stream(server.url("/deflate"), new HashMap<>(),
+          new HashMap<>())) {
+        final String data;
+        try (InputStream in = resp.getInputStream()) {
+          data = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertAll("deflate",
+            () -> assertEquals(JSON, data),
+            () -> assertEquals(1, service.getMetrics().getCompressedResponseCount()));
+      }
+    }
+  }
+
+  @Test
+  public final void testDisabled() throws IOException, HttpServiceException {
+    final AtomicReference<String> acceptEncoding = new AtomicReference<>();
+    final HttpServiceConfig config = new HttpServiceConfig();
+    config.setCompressionEnabled(false);
+
+    try (TestServer server = server(acceptEncoding)) {
+      final HttpService service = new HttpService(config);
+      final HttpResponse resp = service.get(server.url("/gzip"), new HashMap<>(),
+          new HashMap<>());
+      assertAll("disabled",
+          () -> assertNull(acceptEncoding.get()),
+          () -> assertEquals(JSON, resp.getData()),
+          () -> assertEquals(0, service.getMetrics().getCompressedResponseCount()));
+
+      // an explicit header is passed through and the body returned as received
+      final HashMap<String, String> headers = new HashMap<>();
+      headers.put("Accept-Encoding", "gzip");
+      final HttpResponse raw = service.get(server.url("/gzip"), headers, new HashMap<>());
+      assertAll("explicit",
+          () -> assertEquals("gzip", raw.getHeader("Content-Encoding")),
+          () -> assertArrayEquals(compress(true), raw.getBytes()));
+    }
+  }
+
+  @Test
+  public final void testRequestCompression() throws IOException, HttpServiceException {
+    final HttpServiceConfig config = new HttpServiceConfig();
+    config.setRequestCompression("gzip");
+
+    try (TestServer server = inflater()) {
+      final HttpService service = new HttpService(config);
+      final HttpResponse resp = service.post(server.url("/inflate"), new HashMap<>(),
+          new HashMap<>(), JSON);
+      final HttpServiceMetrics metrics = service.getMetrics();
+      assertAll("gzip",
+          () -> assertEquals("gzip chunked", resp.getHeader("X-Encoding")),
+          () -> assertEquals(JSON, resp.getData()),
+          () -> assertEquals(1, metrics.getCompressedRequestCount()),
+          () -> assertEquals(JSON.length(), metrics.getUncompressedRequestBytes()),
+          () -> assertTrue(metrics.getRequestCompressionRatio() > 4, "ratio too low"),
+          () -> assertTrue(!metrics.getRequestCompressionCpuTime().isNegative(), "cpu time"));
+
+      config.setRequestCompression("deflate");
+      final HttpResponse deflated = service.putBody(server.url("/inflate"), new HashMap<>(),
+          new HashMap<>(), RequestBody.of(JSON.getBytes(StandardCharsets.UTF_8)));
+      assertAll("deflate",
+          () -> assertEquals("deflate chunked", deflated.getHeader("X-Encoding")),
+          () -> assertEquals(JSON, deflated.getData()),
+          () -> assertEquals(2, metrics.getCompressedRequestCount()));
+    }
+  }
+
+  @Test
+  public final void testRequestCompressionThreshold() throws IOException, HttpServiceException {
+    final HttpServiceConfig config = new HttpServiceConfig();
+    config.setRequestCompression("gzip");
+
+    try (TestServer server = inflater()) {
+      final HttpService service = new HttpService(config);
+      final HttpResponse small = service.patch(server.url("/inflate"), new HashMap<>(),
+          new HashMap<>(), "{\"id\":1}");
+
+      final HashMap<String, String> headers = new HashMap<>();
+      headers.put("Content-Encoding", "identity");
+      final HttpResponse explicit = service.post(server.url("/inflate"), headers,
+          new HashMap<>(), JSON);
+      assertAll("uncompressed",
+          () -> assertEquals("null null", small.getHeader("X-Encoding")),
+          () -> assertEquals("{\"id\":1}", small.getData()),
+          () -> assertEquals("identity null", explicit.getHeader("X-Encoding")),
+          () -> assertEquals(JSON, explicit.getData()),
+          () -> assertEquals(0, service.getMetrics().getCompressedRequestCount()));
+    }
+  }
+
+  /**
+   * Returns a server answering with the decoded request body, and its encoding headers.
+   */
+  private static TestServer inflater() throws IOException {
+    return new TestServer().handle("/inflate", exchange -> {
+      final String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+      InputStream in = exchange.getRequestBody();
+      if ("gzip".equals(encoding)) {
+        in = new GZIPInputStream(in);
+      } else if ("deflate".equals(encoding)) {
+        in = new InflaterInputStream(in);
+      }
+
+      final byte[] body;
+      try (InputStream decoded = in) {
+        body = decoded.readAllBytes();
+      }
+      exchange.getResponseHeaders().set("X-Encoding", encoding + " "
+          + exchange.getRequestHeaders().getFirst("Transfer-Encoding"));
+      send(exchange, body);
+    });
+  }
+
+  private static TestServer server(final AtomicReference<String> acceptEncoding)
+      throws IOException {
+    return new TestServer()
+        .handle("/gzip", exchange -> {
+          final String accepted = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+          acceptEncoding.set(accepted);
+          if (accepted != null && accepted.contains("gzip")) {
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            send(exchange, compress(true));
+          } else {
+            send(exchange, JSON.getBytes(StandardCharsets.UTF_8));
+          }
+        })
+        .handle("/deflate", exchange -> {
+          exchange.getResponseHeaders().set("Content-Encoding", "deflate");
+          send(exchange, compress(false));
+        });
+  }
+
+  private static void send(final HttpExchange exchange,
+      final byte[] body) throws IOException {
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    exchange.sendResponseHeaders(200, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  private static byte[] compress(final boolean gzip) throws IOException {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (OutputStream out = gzip ? new GZIPOutputStream(bytes)
+        : new DeflaterOutputStream(bytes)) {
+      out.write(JSON.getBytes(StandardCharsets.UTF_8));
+    }
+    return bytes.toByteArray();
+  }
+}
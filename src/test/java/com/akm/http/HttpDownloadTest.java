@@ -0,0 +1,101 @@
+package com.akm.http;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.akm.http.exception.HttpServiceException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Provides test cases for downloading response bodies to a file.
+ *
+ * @author Amir
+ * @since 1.1
+ */
+public class HttpDownloadTest {
+
+  private static final byte[] BODY = new byte[600 * 1024];
+
+  static {
+    new Random(11).nextBytes(BODY);
+  }
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  public final void testDownload() throws IOException, HttpServiceException {
+    try (TestServer server = server()) {
+      for (final String path : new String[]{"/fixed", "/chunked"}) {
+        final Path target = tempDir.resolve(path.substring(1) + ".bin");
+        final HttpDownloadResponse resp = new HttpService().download(server.url(path),
+            new HashMap<>(), new HashMap<>(), target);
+        assertAll("download " + path,
+            () -> TestUtils.statusCode(200, resp.getStatusCode()),
+            () -> assertEquals(target, resp.getPath()),
+            () -> assertEquals(BODY.length, resp.getBytesTransferred()),
+            () -> assertTrue(resp.getThroughput() > 0, "no throughput"),
+            () -> assertArrayEquals(BODY, Files.readAllBytes(target), "file differs"));
+      }
+    }
+  }
+
+  @Test
+  public final void testTooLarge() throws IOException {
+    final HttpServiceConfig config = new HttpServiceConfig();
+    config.setMaxBodySize(BODY.length / 2);
+    final Path target = tempDir.resolve("large.bin");
+
+    try (TestServer server = server()) {
+      assertThrows(HttpServiceException.class, () -> new HttpService(config)
+          .download(server.url("/chunked"), new HashMap<>(), new HashMap<>(), target));
+      assertFalse(Files.exists(target), "partial file not deleted");
+    }
+  }
+
+  @Test
+  public final void testErrorKeepsTarget() throws IOException, HttpServiceException {
+    final Path target = tempDir.resolve("existing.bin");
+    Files.write(target, new byte[]{1, 2, 3});
+
+    try (TestServer server = server()) {
+      final HttpDownloadResponse resp = new HttpService().download(server.url("/missing"),
+          new HashMap<>(), new HashMap<>(), target);
+      assertAll("error",
+          () -> TestUtils.statusCode(404, resp.getStatusCode()),
+          () -> assertEquals(0, resp.getBytesTransferred()),
+          () -> assertArrayEquals(new byte[]{1, 2, 3}, Files.readAllBytes(target),
+              "target overwritten"),
+          () -> assertArrayEquals(new String[]{"existing.bin"}, tempDir.toFile().list(),
+              "temporary file left behind"));
+    }
+  }
+
+  private static TestServer server() throws IOException {
+    return new TestServer()
+        .handle("/missing", exchange -> TestServer.respond(exchange, 404, "not found"))
+        .handle("/fixed", exchange -> {
+          exchange.sendResponseHeaders(200, BODY.length);
+          try (OutputStream out = exchange.getResponseBody()) {
+            out.write(BODY);
+          }
+        })
+        .handle("/chunked", exchange -> {
+          exchange.sendResponseHeaders(200, 0);
+          try (OutputStream out = exchange.getResponseBody()) {
+            out.write(BODY);
+          }
+        });
+  }
+}
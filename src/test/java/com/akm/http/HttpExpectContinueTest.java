@@ -0,0 +1,136 @@
+package com.akm.http;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.akm.http.exception.HttpServiceException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Provides test cases for the <code>Expect: 100-continue</code> handshake.
+ *
+ * @author Amir
+ * @since 1.1
+ */
+public class HttpExpectContinueTest {
+
+  @Test
+  public final void testThreshold() throws IOException, HttpServiceException {
+    final HttpServiceConfig config = new HttpServiceConfig();
+    config.setExpectContinueThreshold(1024);
+    config.setExpectContinueTimeout(Duration.ofSeconds(10));
+
+    try (TestServer server = echo(); HttpService http = new HttpService(config)) {
+      final long start = System.nanoTime();
+      final HttpResponse large = http.putBody(server.url("/upload"), new HashMap<>(),
+          new HashMap<>(), RequestBody.of(new byte[4096]));
+      final long elapsed = System.nanoTime() - start;
+      final HttpResponse small = http.putBody(server.url("/upload"), new HashMap<>(),
+          new HashMap<>(), RequestBody.of(new byte[16]));
+
+      assertAll("threshold",
+          () -> assertEquals("100-continue 4096", large.getData()),
+          () -> assertTrue(elapsed < TimeUnit.SECONDS.toNanos(5), "waited for the timeout"),
+          () -> assertEquals("null 16", small.getData()));
+    }
+  }
+
+  @Test
+  public final void testDisabled() throws IOException, HttpServiceException {
+    try (TestServer server = echo(); HttpService http = new HttpService()) {
+      final HttpResponse resp = http.putBody(server.url("/upload"), new HashMap<>(),
+          new HashMap<>(), RequestBody.of(new byte[4096]));
+      assertEquals("null 4096", resp.getData());
+    }
+  }
+
+  @Test
+  public final void testRejected() throws Exception {
+    final HttpServiceConfig config = new HttpServiceConfig();
+    config.setExpectContinueThreshold(0);
+    config.setExpectContinueTimeout(Duration.ofSeconds(10));
+    final AtomicInteger chunks = new AtomicInteger();
+
+    try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        HttpService http = new HttpService(config)) {
+      final CompletableFuture<String> received = CompletableFuture.supplyAsync(
+          () -> reject(server));
+      final HttpResponse resp = http.putBody(
+          String.format("http://127.0.0.1:%d/upload", server.getLocalPort()), new HashMap<>(),
+          new HashMap<>(), RequestBody.ofChunks(() -> chunks.getAndIncrement() < 100
+              ? new byte[64 * 1024] : null));
+
+      final String request = received.get(10, TimeUnit.SECONDS);
+      assertAll("rejected",
+          () -> TestUtils.statusCode(413, resp.getStatusCode()),
+          () -> assertTrue(request.contains("Expect: 100-continue"), request),
+          () -> assertTrue(request.endsWith("\r\n\r\n"), "body was sent"),
+          () -> assertEquals(0, chunks.get()));
+    }
+  }
+
+  /**
+   * Accepts a single connection, answers <code>413</code> as soon as the request head is read, and
+   * returns everything the client sent until it closed the connection.
+   */
+  private static String reject(final ServerSocket server) {
+    try (Socket socket = server.accept()) {
+      final InputStream in = socket.getInputStream();
+      final ByteArrayOutputStream received = new ByteArrayOutputStream();
+
+      int b;
+      while (!received.toString(StandardCharsets.ISO_8859_1).endsWith("\r\n\r\n")
+          && (b = in.read()) >= 0) {
+        received.write(b);
+      }
+
+      final OutputStream out = socket.getOutputStream();
+      out.write(("HTTP/1.1 413 Payload Too Large\r\nContent-Length: 0\r\nConnection: close"
+          + "\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+      out.flush();
+
+      socket.setSoTimeout(2000);
+      try {
+        while ((b = in.read()) >= 0) {
+          received.write(b);
+        }
+      } catch (final SocketException e) {
+        // the client aborts the connection, which may reset it
+      }
+
+      return received.toString(StandardCharsets.ISO_8859_1);
+    } catch (final IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Returns a server answering with the <code>Expect</code> header and the length of the body it
+   * received.
+   */
+  private static TestServer echo() throws IOException {
+    return new TestServer().handle("/upload", exchange -> {
+      final byte[] body;
+      try (InputStream in = exchange.getRequestBody()) {
+        body = in.readAllBytes();
+      }
+      TestServer.respond(exchange, 200, exchange.getRequestHeaders().getFirst("Expect") + " "
+          + body.length);
+    });
+  }
+}
@@ -0,0 +1,173 @@
+package com.akm.http;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.akm.http.exception.HttpServiceException;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Provides test cases for parallel ranged downloads.
+ *
+ * @author Amir
+ * @since 1.1
+ */
+public class HttpRangedDownloadTest {
+
+  private static final byte[] BODY = new byte[1 << 20];
+
+  static {
+    new Random(5).nextBytes(BODY);
+  }
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  public final void testRanged() throws IOException, HttpServiceException {
+    final List<String> ranges = new CopyOnWriteArrayList<>();
+
+    try (TestServer server = new TestServer()) {
+      server.handle("/file", exchange -> serve(exchange, true, "\"v1\"", ranges));
+
+      final Path target = tempDir.resolve("ranged.bin");
+      final HttpDownloadResponse resp = new HttpService().download(server.url("/file"),
+          new HashMap<>(), new HashMap<>(), target, 4);
+      assertAll("ranged",
+          () -> TestUtils.statusCode(200, resp.getStatusCode()),
+          () -> assertEquals(BODY.length, resp.getBytesTransferred()),
+          () -> assertEquals(4, ranges.size()),
+          () -> assertTrue(ranges.contains("bytes=786432-1048575 \"v1\""), "last range missing"),
+          () -> assertArrayEquals(BODY, Files.readAllBytes(target), "file differs"));
+    }
+  }
+
+  @Test
+  public final void testChanged() throws IOException, HttpServiceException {
+    final List<String> ranges = new CopyOnWriteArrayList<>();
+
+    try (TestServer server = new TestServer()) {
+      // the content changes between the HEAD request and the range requests
+      server.handle("/file", exchange -> serve(exchange, true,
+          "HEAD".equals(exchange.getRequestMethod()) ? "\"v1\"" : "\"v2\"", ranges));
+
+      final Path target = tempDir.resolve("changed.bin");
+      final HttpDownloadResponse resp = new HttpService().download(server.url("/file"),
+          new HashMap<>(), new HashMap<>(), target, 4);
+      assertAll("changed",
+          () -> TestUtils.statusCode(200, resp.getStatusCode()),
+          () -> assertEquals(BODY.length, resp.getBytesTransferred()),
+          () -> assertTrue(ranges.contains("bytes=0-262143 \"v1\""), "no If-Range sent"),
+          () -> assertEquals("\"v2\"", resp.getHeader("ETag")),
+          () -> assertArrayEquals(BODY, Files.readAllBytes(target), "file differs"));
+    }
+  }
+
+  @Test
+  public final void testFailedRangeKeepsTarget() throws IOException {
+    final Path target = tempDir.resolve("existing.bin");
+    Files.write(target, new byte[]{1, 2, 3});
+
+    try (TestServer server = new TestServer()) {
+      server.handle("/file", exchange -> {
+        final String range = exchange.getRequestHeaders().getFirst("Range");
+        if (range == null || range.startsWith("bytes=0-")) {
+          serve(exchange, true, "\"v1\"", new CopyOnWriteArrayList<>());
+          return;
+        }
+
+        // a window of the requested length, but at the wrong offset
+        final String[] bounds = range.substring("bytes=".length()).split("-");
+        final int length = Integer.parseInt(bounds[1]) - Integer.parseInt(bounds[0]) + 1;
+        exchange.getResponseHeaders().set("Content-Range",
+            "bytes 0-" + (length - 1) + "/" + BODY.length);
+        exchange.sendResponseHeaders(206, length);
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(BODY, 0, length);
+        }
+      });
+
+      assertThrows(HttpServiceException.class, () -> new HttpService().download(
+          server.url("/file"), new HashMap<>(), new HashMap<>(), target, 4));
+      assertAll("failed range",
+          () -> assertArrayEquals(new byte[]{1, 2, 3}, Files.readAllBytes(target),
+              "target overwritten"),
+          () -> assertArrayEquals(new String[]{"existing.bin"}, tempDir.toFile().list(),
+              "temporary file left behind"));
+    }
+  }
+
+  @Test
+  public final void testFallback() throws IOException, HttpServiceException {
+    final List<String> ranges = new CopyOnWriteArrayList<>();
+
+    try (TestServer server = new TestServer()) {
+      server.handle("/file", exchange -> serve(exchange, false, "\"v1\"", ranges));
+
+      final Path target = tempDir.resolve("single.bin");
+      final HttpDownloadResponse resp = new HttpService().download(server.url("/file"),
+          new HashMap<>(), new HashMap<>(), target, 4);
+      assertAll("fallback",
+          () -> assertEquals(BODY.length, resp.getBytesTransferred()),
+          () -> assertTrue(ranges.isEmpty(), "ranges requested"),
+          () -> assertArrayEquals(BODY, Files.readAllBytes(target), "file differs"));
+    }
+  }
+
+  /**
+   * Serves the body, honouring <code>Range</code> requests if ranges are accepted and their
+   * <code>If-Range</code> header matches the given entity tag, and records each range requested
+   * along with its <code>If-Range</code> header.
+   */
+  private static void serve(final HttpExchange exchange, final boolean acceptRanges,
+      final String etag, final List<String> ranges) throws IOException {
+    if (acceptRanges) {
+      exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+    }
+    exchange.getResponseHeaders().set("ETag", etag);
+
+    if ("HEAD".equals(exchange.getRequestMethod())) {
+      exchange.getResponseHeaders().set("Content-Length", String.valueOf(BODY.length));
+      exchange.sendResponseHeaders(200, -1);
+      exchange.close();
+      return;
+    }
+
+    final String range = exchange.getRequestHeaders().getFirst("Range");
+    final String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+    int from = 0;
+    int to = BODY.length - 1;
+    int status = 200;
+
+    if (range != null) {
+      ranges.add(range + " " + ifRange);
+    }
+
+    if (range != null && acceptRanges && (ifRange == null || ifRange.equals(etag))) {
+      final String[] bounds = range.substring("bytes=".length()).split("-");
+      from = Integer.parseInt(bounds[0]);
+      to = Integer.parseInt(bounds[1]);
+      status = 206;
+      exchange.getResponseHeaders().set("Content-Range",
+          "bytes " + from + "-" + to + "/" + BODY.length);
+    }
+
+    exchange.sendResponseHeaders(status, to - from + 1);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(BODY, from, to - from + 1);
+    }
+  }
+}
@@ -0,0 +1,201 @@
+package com.akm.http;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.akm.http.exception.HttpServiceException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Provides test cases for streamed and multipart request bodies.
+ *
+ * @author Amir
+ * @since 1.1
+ */
+public class HttpRequestBodyTest {
+
+  private static final byte[] BODY = new byte[1 << 20];
+
+  static {
+    new Random(5).nextBytes(BODY);
+  }
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  public final void testFile() throws IOException, HttpServiceException {
+    final Path file = tempDir.resolve("upload.bin");
+    Files.write(file, BODY);
+
+    try (TestServer server = echo()) {
+      final HttpResponse resp = new HttpService().putBody(server.url("/echo"), new HashMap<>(),
+          new HashMap<>(), RequestBody.of(file));
+      assertAll("file",
+          () -> assertEquals(String.valueOf(BODY.length), resp.getHeader("X-Content-Length")),
+          () -> assertEquals("null", resp.getHeader("X-Transfer-Encoding")),
+          () -> assertEquals(crc(BODY), resp.getData()));
+    }
+  }
+
+  @Test
+  public final void testStream() throws IOException, HttpServiceException {
+    try (TestServer server = echo()) {
+      final HttpService service = new HttpService();
+      final HttpResponse chunked = service.postBody(server.url("/echo"), new HashMap<>(),
+          new HashMap<>(), RequestBody.of(new ByteArrayInputStream(BODY)));
+      final HttpResponse sized = service.postBody(server.url("/echo"), new HashMap<>(),
+          new HashMap<>(), RequestBody.of(new ByteArrayInputStream(BODY), 1000));
+      assertAll("stream",
+          () -> assertEquals("chunked", chunked.getHeader("X-Transfer-Encoding")),
+          () -> assertEquals(crc(BODY), chunked.getData()),
+          () -> assertEquals("1000", sized.getHeader("X-Content-Length")),
+          () -> assertEquals(crc(Arrays.copyOf(BODY, 1000)), sized.getData()));
+    }
+  }
+
+  @Test
+  public final void testBuffers() throws IOException, HttpServiceException {
+    final ByteBuffer direct = ByteBuffer.allocateDirect(BODY.length).put(BODY).flip();
+    direct.position(10);
+    final byte[] tail = Arrays.copyOfRange(BODY, 10, BODY.length);
+
+    try (TestServer server = echo()) {
+      final HttpService service = new HttpService();
+      final HttpResponse array = service.patchBody(server.url("/echo"), new HashMap<>(),
+          new HashMap<>(), RequestBody.of(BODY));
+      final HttpResponse buffer = service.patchBody(server.url("/echo"), new HashMap<>(),
+          new HashMap<>(), RequestBody.of(direct));
+      assertAll("buffers",
+          () -> assertEquals(crc(BODY), array.getData()),
+          () -> assertEquals(String.valueOf(tail.length), buffer.getHeader("X-Content-Length")),
+          () -> assertEquals(crc(tail), buffer.getData()),
+          () -> assertEquals(10, direct.position()));
+    }
+  }
+
+  @Test
+  public final void testChunks() throws IOException, HttpServiceException {
+    final AtomicInteger chunk = new AtomicInteger();
+    final RequestBody body = RequestBody.ofChunks(() -> {
+      final int i = chunk.getAndIncrement();
+      return i < 16 ? Arrays.copyOfRange(BODY, i * 65536, (i + 1) * 65536) : null;
+    });
+
+    try (TestServer server = echo()) {
+      final HttpResponse resp = new HttpService().postBody(server.url("/echo"), new HashMap<>(),
+          new HashMap<>(), body);
+      assertAll("chunks",
+          () -> assertEquals(-1, body.getContentLength()),
+          () -> assertFalse(body.isRepeatable(), "repeatable"),
+          () -> assertTrue(RequestBody.of(BODY).isRepeatable(), "not repeatable"),
+          () -> assertEquals("chunked", resp.getHeader("X-Transfer-Encoding")),
+          () -> assertEquals(crc(BODY), resp.getData()));
+    }
+  }
+
+  @Test
+  public final void testMultipart() throws IOException, HttpServiceException {
+    final Path file = tempDir.resolve("report.bin");
+    Files.write(file, BODY);
+    final AtomicReference<byte[]> received = new AtomicReference<>();
+    final AtomicReference<String> contentType = new AtomicReference<>();
+
+    try (TestServer server = echo()) {
+      server.handle("/raw", exchange -> {
+        contentType.set(exchange.getRequestHeaders().getFirst("Content-Type"));
+        try (InputStream in = exchange.getRequestBody()) {
+          received.set(in.readAllBytes());
+        }
+        exchange.getResponseHeaders().set("X-Content-Length",
+            exchange.getRequestHeaders().getFirst("Content-Length"));
+        TestServer.respond(exchange, 200, "");
+      });
+
+      final RequestBody body = RequestBody.multipart()
+          .addField("title", "café")
+          .addFile("report", file, "application/pdf")
+          .addBytes("notes", "n".getBytes(StandardCharsets.UTF_8), "notes.txt", "text/plain")
+          .addStream("data", new ByteArrayInputStream(BODY, 0, 1000), "data.bin", null, 1000)
+          .build();
+      final HttpResponse resp = new HttpService().postBody(server.url("/raw"), new HashMap<>(),
+          new HashMap<>(), body);
+
+      final String text = new String(received.get(), StandardCharsets.UTF_8);
+      assertAll("multipart",
+          () -> assertTrue(body.getContentLength() > BODY.length, "length unknown"),
+          () -> assertFalse(body.isRepeatable(), "stream part repeatable"),
+          () -> assertTrue(RequestBody.multipart().addFile("report", file, null).build()
+              .isRepeatable(), "file part not repeatable"),
+          () -> assertEquals(String.valueOf(body.getContentLength()),
+              resp.getHeader("X-Content-Length")),
+          () -> assertEquals(body.getContentLength(), received.get().length),
+          () -> assertTrue(contentType.get().startsWith("multipart/form-data; boundary="),
+              contentType.get()),
+          () -> assertTrue(text.contains("name=\"title\"") && text.contains("café"), "no field"),
+          () -> assertTrue(text.contains("filename=\"report.bin\"\r\n"
+              + "Content-Type: application/pdf"), "no file"),
+          () -> assertTrue(text.contains("filename=\"notes.txt\""), "no bytes"),
+          () -> assertTrue(text.contains("filename=\"data.bin\""), "no stream"));
+    }
+  }
+
+  @Test
+  public final void testMultipartChunked() throws IOException, HttpServiceException {
+    try (TestServer server = echo()) {
+      final RequestBody body = RequestBody.multipart()
+          .addField("id", "1")
+          .addStream("data", new ByteArrayInputStream(BODY), "data.bin", null, -1)
+          .build();
+      final HttpResponse resp = new HttpService().postBody(server.url("/echo"), new HashMap<>(),
+          new HashMap<>(), body);
+      assertAll("chunked",
+          () -> assertEquals(-1, body.getContentLength()),
+          () -> assertEquals("chunked", resp.getHeader("X-Transfer-Encoding")));
+    }
+  }
+
+  /**
+   * Returns a server answering with the checksum of the request body, and its framing headers.
+   */
+  private static TestServer echo() throws IOException {
+    return new TestServer().handle("/echo", exchange -> {
+      final CRC32 crc = new CRC32();
+      final byte[] buffer = new byte[8192];
+      try (InputStream in = exchange.getRequestBody()) {
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+          crc.update(buffer, 0, read);
+        }
+      }
+
+      exchange.getResponseHeaders().set("X-Content-Length",
+          String.valueOf(exchange.getRequestHeaders().getFirst("Content-Length")));
+      exchange.getResponseHeaders().set("X-Transfer-Encoding",
+          String.valueOf(exchange.getRequestHeaders().getFirst("Transfer-Encoding")));
+      TestServer.respond(exchange, 200, Long.toString(crc.getValue()));
+    });
+  }
+
+  private static String crc(final byte[] bytes) {
+    final CRC32 crc = new CRC32();
+    crc.update(bytes);
+    return Long.toString(crc.getValue());
+  }
+}
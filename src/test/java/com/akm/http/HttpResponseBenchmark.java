@@ -0,0 +1,71 @@
+package com.akm.http;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpVersion;
+import org.apache.hc.core5.http.message.BasicHeader;
+import org.apache.hc.core5.http.message.StatusLine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of building an {@link HttpResponse} from a typical set of response headers.
+ * <p>
+ * Run with the GC profiler (see the README) to compare bytes allocated per response, where
+ * <code>baseline</code> reproduces the original behaviour, before response headers were indexed,
+ * of copying every header into a <code>HashMap</code>.
+ *
+ * @author Amir
+ * @since 1.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HttpResponseBenchmark {
+
+  private static final StatusLine OK = new StatusLine(HttpVersion.HTTP_1_1, 200, "OK");
+
+  private final Header[] headers = {new BasicHeader("Date", "Mon, 19 Oct 2026 12:00:00 GMT"),
+      new BasicHeader("Content-Type", "application/json"),
+      new BasicHeader("Content-Length", "1024"), new BasicHeader("Connection", "keep-alive"),
+      new BasicHeader("Server", "nginx"), new BasicHeader("Cache-Control", "no-cache"),
+      new BasicHeader("Vary", "Accept-Encoding"), new BasicHeader("Set-Cookie", "a=1"),
+      new BasicHeader("Set-Cookie", "b=2"), new BasicHeader("X-Request-Id", "0f3c9a")};
+
+  private final byte[] body = new byte[0];
+
+  @Benchmark
+  public Map<String, String> baseline() {
+    final Map<String, String> map = new HashMap<>();
+    for (final Header header : headers) {
+      map.put(header.getName(), header.getValue());
+    }
+    return map;
+  }
+
+  @Benchmark
+  public HttpResponse statusOnly() {
+    final HttpResponse resp = new HttpResponse(headers, OK, ResponseBody.of(body), null);
+    resp.getStatusCode();
+    return resp;
+  }
+
+  @Benchmark
+  public HttpResponse headerLookup() {
+    final HttpResponse resp = new HttpResponse(headers, OK, ResponseBody.of(body), null);
+    resp.getHeader("content-type");
+    return resp;
+  }
+}
@@ -0,0 +1,118 @@
+package com.akm.http;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpVersion;
+import org.apache.hc.core5.http.message.BasicHeader;
+import org.apache.hc.core5.http.message.StatusLine;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Provides test cases for the response body and headers of {@link HttpResponse}.
+ *
+ * @author Amir
+ * @since 1.1
+ */
+public class HttpResponseTest {
+
+  private static final StatusLine OK = new StatusLine(HttpVersion.HTTP_1_1, 200, "OK");
+
+  @Test
+  public final void testCharsetFromContentType() {
+    final String text = "café crème";
+    final HttpResponse resp = response(text.getBytes(StandardCharsets.ISO_8859_1),
+        "text/html; charset=ISO-8859-1");
+    assertAll("charset from content type",
+        () -> assertEquals(StandardCharsets.ISO_8859_1, resp.getCharset()),
+        () -> assertEquals(text, resp.getData()),
+        () -> assertSame(resp.getData(), resp.getData(), "data not cached"));
+  }
+
+  @Test
+  public final void testDefaultCharset() {
+    final String text = "café";
+    assertAll("default charset",
+        () -> assertEquals(text,
+            response(text.getBytes(StandardCharsets.UTF_8), "application/json").getData()),
+        () -> assertEquals(text,
+            response(text.getBytes(StandardCharsets.UTF_8), null).getData()),
+        () -> assertEquals(StandardCharsets.ISO_8859_1,
+            response(new byte[0], "text/plain").getCharset()));
+  }
+
+  @Test
+  public final void testBytes() {
+    final byte[] body = {0, 1, 2, (byte) 0xff};
+    final HttpResponse resp = response(body, "application/octet-stream");
+    final ByteBuffer buffer = resp.asByteBuffer();
+    assertAll("bytes",
+        () -> assertArrayEquals(body, resp.getBytes()),
+        () -> assertTrue(buffer.isReadOnly(), "buffer is writable"),
+        () -> assertEquals(body.length, buffer.remaining()),
+        () -> assertEquals((byte) 0xff, buffer.get(3)));
+  }
+
+  @Test
+  public final void testNoBody() {
+    final HttpResponse resp = response(null, null);
+    assertAll("no body",
+        () -> assertNull(resp.getData()),
+        () -> assertNull(resp.getBytes()),
+        () -> assertNull(resp.asByteBuffer()));
+  }
+
+  @Test
+  public final void testHeaders() {
+    final Header[] headers = {new BasicHeader("content-type", "text/plain"),
+        new BasicHeader("Set-Cookie", "a=1"), new BasicHeader("X-Custom", "x"),
+        new BasicHeader("set-cookie", "b=2"), new BasicHeader("SET-COOKIE", "c=3")};
+    final HttpResponse resp = new HttpResponse(headers, OK, null, null);
+    final Map<String, String> map = resp.getHeaders();
+    assertAll("headers",
+        () -> assertEquals("text/plain", resp.getHeader("Content-Type")),
+        () -> assertEquals("c=3", resp.getHeader("set-cookie")),
+        () -> assertEquals(List.of("a=1", "b=2", "c=3"), resp.getHeaders("Set-Cookie")),
+        () -> assertEquals(List.of("x"), resp.getHeaders("x-custom")),
+        () -> assertTrue(resp.getHeaders("Missing").isEmpty(), "missing header has values"),
+        () -> assertEquals(3, map.size()),
+        () -> assertTrue(map.containsKey("CONTENT-TYPE"), "map is case-sensitive"),
+        () -> assertFalse(map.containsKey("Missing"), "map contains missing header"),
+        () -> assertEquals("c=3", map.get("Set-Cookie")),
+        () -> assertEquals(List.of("text/plain", "c=3", "x"), List.copyOf(map.values())),
+        () -> assertThrows(UnsupportedOperationException.class, () -> map.put("X-Custom", "y")),
+        () -> assertEquals(List.of("content-type", "Set-Cookie", "X-Custom"),
+            List.copyOf(map.keySet())));
+  }
+
+  @Test
+  public final void testManyHeaders() {
+    final Header[] headers = new Header[100];
+    for (int i = 0; i < headers.length; i++) {
+      headers[i] = new BasicHeader("X-Header-" + i % 40, String.valueOf(i));
+    }
+    final HttpResponse resp = new HttpResponse(headers, OK, null, null);
+    assertAll("many headers",
+        () -> assertEquals(40, resp.getHeaders().size()),
+        () -> assertEquals(List.of("7", "47", "87"), resp.getHeaders("x-header-7")),
+        () -> assertEquals("79", resp.getHeader("X-HEADER-39")));
+  }
+
+  private static HttpResponse response(final byte[] body, final String contentType) {
+    final Header[] headers = contentType == null ? new Header[0]
+        : new Header[]{new BasicHeader("Content-Type", contentType)};
+    return new HttpResponse(headers, OK,
+        body != null ? ResponseBody.of(body) : null, contentType);
+  }
+}
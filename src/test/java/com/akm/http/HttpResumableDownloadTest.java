@@ -0,0 +1,176 @@
+package com.akm.http;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.akm.http.exception.HttpServiceException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Provides test cases for resumable downloads.
+ *
+ * @author Amir
+ * @since 1.1
+ */
+public class HttpResumableDownloadTest {
+
+  private static final byte[] BODY = new byte[512 * 1024];
+
+  static {
+    new Random(9).nextBytes(BODY);
+  }
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  public final void testResume() throws IOException, HttpServiceException {
+    final AtomicReference<String> etag = new AtomicReference<>("\"v1\"");
+    final AtomicReference<String> range = new AtomicReference<>();
+    final Path target = tempDir.resolve("file.bin");
+
+    try (TestServer server = server(etag, range)) {
+      final HttpService service = new HttpService();
+      assertThrows(HttpServiceException.class, () -> service.resumableDownload(
+          server.url("/drop"), new HashMap<>(), new HashMap<>(), target));
+      final long partial = Files.size(DownloadCheckpoint.partFile(target));
+      assertAll("interrupted",
+          () -> assertFalse(Files.exists(target), "target written"),
+          () -> assertTrue(partial > 0 && partial < BODY.length, "no partial content"),
+          () -> assertTrue(Files.exists(DownloadCheckpoint.checkpointFile(target)),
+              "no checkpoint"));
+
+      final HttpDownloadResponse resp = service.resumableDownload(server.url("/drop"),
+          new HashMap<>(), new HashMap<>(), target);
+      assertAll("resumed",
+          () -> TestUtils.statusCode(206, resp.getStatusCode()),
+          () -> assertEquals("bytes=" + partial + "-", range.get()),
+          () -> assertEquals(partial, resp.getResumeOffset()),
+          () -> assertEquals(BODY.length - partial, resp.getBytesTransferred()),
+          () -> assertArrayEquals(BODY, Files.readAllBytes(target), "file differs"),
+          () -> assertFalse(Files.exists(DownloadCheckpoint.partFile(target)), "part kept"),
+          () -> assertFalse(Files.exists(DownloadCheckpoint.checkpointFile(target)),
+              "checkpoint kept"));
+    }
+  }
+
+  @Test
+  public final void testContentChanged() throws IOException, HttpServiceException {
+    final AtomicReference<String> etag = new AtomicReference<>("\"v1\"");
+    final Path target = tempDir.resolve("file.bin");
+
+    try (TestServer server = server(etag, new AtomicReference<>())) {
+      final HttpService service = new HttpService();
+      assertThrows(HttpServiceException.class, () -> service.resumableDownload(
+          server.url("/drop"), new HashMap<>(), new HashMap<>(), target));
+
+      etag.set("\"v2\"");
+      final HttpDownloadResponse resp = service.resumableDownload(server.url("/drop"),
+          new HashMap<>(), new HashMap<>(), target);
+      assertAll("restarted",
+          () -> TestUtils.statusCode(200, resp.getStatusCode()),
+          () -> assertEquals(0, resp.getResumeOffset()),
+          () -> assertEquals(BODY.length, resp.getBytesTransferred()),
+          () -> assertArrayEquals(BODY, Files.readAllBytes(target), "file differs"));
+    }
+  }
+
+  @Test
+  public final void testAlreadyComplete() throws IOException, HttpServiceException {
+    final AtomicReference<String> range = new AtomicReference<>();
+    final Path target = tempDir.resolve("file.bin");
+
+    try (TestServer server = new TestServer()) {
+      server.handle("/file", exchange -> {
+        range.set(exchange.getRequestHeaders().getFirst("Range"));
+        exchange.getResponseHeaders().set("ETag", "\"v1\"");
+        exchange.getResponseHeaders().set("Content-Range", "bytes */" + BODY.length);
+        exchange.sendResponseHeaders(416, -1);
+        exchange.close();
+      });
+      new DownloadCheckpoint(server.url("/file"), "\"v1\"", null).save(target);
+      Files.write(DownloadCheckpoint.partFile(target), BODY);
+
+      final HttpDownloadResponse resp = new HttpService().resumableDownload(server.url("/file"),
+          new HashMap<>(), new HashMap<>(), target);
+      assertAll("complete",
+          () -> TestUtils.statusCode(416, resp.getStatusCode()),
+          () -> assertEquals("bytes=" + BODY.length + "-", range.get()),
+          () -> assertEquals(BODY.length, resp.getResumeOffset()),
+          () -> assertEquals(0, resp.getBytesTransferred()),
+          () -> assertArrayEquals(BODY, Files.readAllBytes(target), "file differs"),
+          () -> assertFalse(Files.exists(DownloadCheckpoint.partFile(target)), "part kept"),
+          () -> assertFalse(Files.exists(DownloadCheckpoint.checkpointFile(target)),
+              "checkpoint kept"));
+    }
+  }
+
+  @Test
+  public final void testError() throws IOException {
+    final Path target = tempDir.resolve("file.bin");
+
+    try (TestServer server = new TestServer()) {
+      server.handle("/missing", exchange -> TestServer.respond(exchange, 404, "not found"));
+      new DownloadCheckpoint(server.url("/missing"), "\"v1\"", null).save(target);
+      Files.write(DownloadCheckpoint.partFile(target), new byte[]{1, 2, 3});
+
+      assertThrows(HttpServiceException.class, () -> new HttpService().resumableDownload(
+          server.url("/missing"), new HashMap<>(), new HashMap<>(), target));
+      assertAll("error",
+          () -> assertFalse(Files.exists(target), "target written"),
+          () -> assertArrayEquals(new byte[]{1, 2, 3},
+              Files.readAllBytes(DownloadCheckpoint.partFile(target)), "part file changed"),
+          () -> assertTrue(Files.exists(DownloadCheckpoint.checkpointFile(target)),
+              "checkpoint deleted"));
+    }
+  }
+
+  /**
+   * Returns a server whose first response drops the connection half way through the body, and
+   * which honours ranges validated by the current entity tag.
+   */
+  private static TestServer server(final AtomicReference<String> etag,
+      final AtomicReference<String> range) throws IOException {
+    final AtomicReference<Boolean> dropped = new AtomicReference<>(false);
+
+    return new TestServer().handle("/drop", exchange -> {
+      exchange.getResponseHeaders().set("ETag", etag.get());
+      exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+      final String requested = exchange.getRequestHeaders().getFirst("Range");
+      range.set(requested);
+
+      if (!dropped.getAndSet(true)) {
+        exchange.sendResponseHeaders(200, BODY.length);
+        final OutputStream out = exchange.getResponseBody();
+        out.write(BODY, 0, BODY.length / 2);
+        out.flush();
+        // failing the handler shuts down the connection
+        throw new IllegalStateException("connection dropped");
+      } else if (requested != null
+          && etag.get().equals(exchange.getRequestHeaders().getFirst("If-Range"))) {
+        final int from = Integer.parseInt(requested.substring("bytes=".length(),
+            requested.length() - 1));
+        exchange.getResponseHeaders().set("Content-Range",
+            "bytes " + from + "-" + (BODY.length - 1) + "/" + BODY.length);
+        exchange.sendResponseHeaders(206, BODY.length - from);
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(BODY, from, BODY.length - from);
+        }
+      } else {
+        TestServer.respond(exchange, 200, BODY);
+      }
+    });
+  }
+}
@@ -0,0 +1,181 @@
+package com.akm.http;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.akm.http.exception.HttpServiceException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Provides test cases for streaming response bodies.
+ *
+ * @author Amir
+ * @since 1.1
+ */
+public class HttpStreamTest {
+
+  @Test
+  public final void testStream() throws IOException, HttpServiceException {
+    final byte[] body = new byte[1 << 20];
+    new Random(42).nextBytes(body);
+
+    try (TestServer server = new TestServer()) {
+      server.handle("/bytes", exchange -> {
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(body);
+        }
+      });
+
+      try (HttpStreamResponse resp = new HttpService().stream(server.url("/bytes"),
+          new HashMap<>(), new HashMap<>())) {
+        final byte[] read;
+        try (InputStream in = resp.getInputStream()) {
+          read = in.readAllBytes();
+        }
+        assertAll("stream",
+            () -> TestUtils.statusCode(200, resp.getStatusCode()),
+            () -> assertEquals(String.valueOf(body.length), resp.getHeader("Content-length")),
+            () -> assertArrayEquals(body, read, "body differs"));
+      }
+    }
+  }
+
+  @Test
+  public final void testCloseReleasesConnection()
+      throws IOException, HttpServiceException, InterruptedException {
+    final CountDownLatch aborted = new CountDownLatch(1);
+
+    try (TestServer server = new TestServer()) {
+      server.handle("/endless", exchange -> {
+        exchange.sendResponseHeaders(200, 0);
+        final byte[] chunk = new byte[8192];
+
+        try (OutputStream out = exchange.getResponseBody()) {
+          while (true) {
+            out.write(chunk);
+            out.flush();
+          }
+        } catch (final IOException e) {
+          aborted.countDown();
+        }
+      });
+
+      final HttpStreamResponse resp = new HttpService().stream(server.url("/endless"),
+          new HashMap<>(), new HashMap<>());
+      final ReadableByteChannel channel = resp.getChannel();
+      final ByteBuffer buffer = ByteBuffer.allocate(1024);
+      assertTrue(channel.read(buffer) > 0, "nothing read");
+      channel.close();
+
+      assertTrue(aborted.await(5, TimeUnit.SECONDS), "connection was not released");
+    }
+  }
+
+  @Test
+  public final void testLines() throws IOException, HttpServiceException {
+    final String longLine = "x".repeat(200 * 1024);
+
+    try (TestServer server = new TestServer()) {
+      server.handle("/ndjson", exchange -> {
+        exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+          for (int i = 0; i < 10_000; i++) {
+            out.write(("{\"id\":" + i + ",\"name\":\"é\"}\n").getBytes(StandardCharsets.UTF_8));
+          }
+          out.write(("\r\n" + longLine + "\r\nlast").getBytes(StandardCharsets.UTF_8));
+        }
+      });
+
+      try (Stream<String> lines = new HttpService().lines(server.url("/ndjson"),
+          new HashMap<>(), new HashMap<>())) {
+        final Iterator<String> it = lines.iterator();
+        for (int i = 0; i < 10_000; i++) {
+          assertEquals("{\"id\":" + i + ",\"name\":\"é\"}", it.next());
+        }
+        assertAll("lines",
+            () -> assertEquals("", it.next()),
+            () -> assertEquals(longLine, it.next()),
+            () -> assertEquals("last", it.next()),
+            () -> assertFalse(it.hasNext(), "lines left"));
+      }
+    }
+  }
+
+  @Test
+  public final void testLinesCharset() throws IOException, HttpServiceException {
+    try (TestServer server = new TestServer()) {
+      server.handle("/utf16", exchange -> {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-16");
+        TestServer.respond(exchange, 200, "a\nb\n".getBytes(StandardCharsets.UTF_16));
+      });
+
+      try (HttpStreamResponse resp = new HttpService().stream(server.url("/utf16"),
+          new HashMap<>(), new HashMap<>()); Stream<String> lines = resp.lines()) {
+        assertEquals(List.of("a", "b"), lines.collect(Collectors.toList()));
+      }
+    }
+  }
+
+  @Test
+  public final void testLinesDecodeOnlyCharset() throws IOException, HttpServiceException {
+    try (TestServer server = new TestServer()) {
+      server.handle("/iso2022", exchange -> {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=ISO-2022-CN");
+        TestServer.respond(exchange, 200, "a\nb\n".getBytes(StandardCharsets.US_ASCII));
+      });
+
+      try (HttpStreamResponse resp = new HttpService().stream(server.url("/iso2022"),
+          new HashMap<>(), new HashMap<>()); Stream<String> lines = resp.lines()) {
+        assertEquals(List.of("a", "b"), lines.collect(Collectors.toList()));
+      }
+    }
+  }
+
+  @Test
+  public final void testLinesCloseReleasesConnection()
+      throws IOException, HttpServiceException, InterruptedException {
+    final CountDownLatch aborted = new CountDownLatch(1);
+
+    try (TestServer server = new TestServer()) {
+      server.handle("/endless", exchange -> {
+        exchange.sendResponseHeaders(200, 0);
+        final byte[] chunk = "{}\n".repeat(1024).getBytes(StandardCharsets.UTF_8);
+
+        try (OutputStream out = exchange.getResponseBody()) {
+          while (true) {
+            out.write(chunk);
+            out.flush();
+          }
+        } catch (final IOException e) {
+          aborted.countDown();
+        }
+      });
+
+      try (Stream<String> lines = new HttpService().lines(server.url("/endless"),
+          new HashMap<>(), new HashMap<>())) {
+        assertEquals(10, lines.limit(10).count());
+      }
+
+      assertTrue(aborted.await(5, TimeUnit.SECONDS), "connection was not released");
+    }
+  }
+}
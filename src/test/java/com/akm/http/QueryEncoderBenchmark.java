@@ -0,0 +1,84 @@
+package com.akm.http;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.io.entity.HttpEntities;
+import org.apache.hc.core5.http.message.BasicNameValuePair;
+import org.apache.hc.core5.net.URIBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of encoding request parameters into a url query and into a form body.
+ * <p>
+ * Run with the GC profiler (see the README) to compare bytes allocated per request, where
+ * <code>baselineQuery</code> and <code>baselineForm</code> reproduce the previous behaviour of
+ * rebuilding the request uri with a <code>URIBuilder</code> and of collecting the parameters into
+ * name-value pairs with a parallel stream.
+ *
+ * @author Amir
+ * @since 1.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryEncoderBenchmark {
+
+  private static final String URL = "http://localhost:8080/api/items?format=json";
+
+  @Param({"1", "10", "100", "1000"})
+  private int count;
+
+  private final Map<String, String> parameters = new LinkedHashMap<>();
+
+  @Setup
+  public void setup() {
+    for (int i = 0; i < count; i++) {
+      parameters.put("param" + i, i % 3 == 0 ? "some value é/" + i : "value" + i);
+    }
+  }
+
+  @Benchmark
+  public URI baselineQuery() throws URISyntaxException {
+    final URIBuilder builder = new URIBuilder(URL);
+    parameters.forEach(builder::setParameter);
+    return builder.build();
+  }
+
+  @Benchmark
+  public String query() {
+    return QueryEncoder.appendQuery("/api/items?format=json", parameters);
+  }
+
+  @Benchmark
+  public HttpEntity baselineForm() {
+    final List<BasicNameValuePair> pairs = parameters.entrySet().parallelStream()
+        .map(e -> new BasicNameValuePair(e.getKey(), e.getValue()))
+        .collect(Collectors.toList());
+    return HttpEntities.createUrlEncoded(pairs, StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public byte[] form() {
+    return QueryEncoder.encodeForm(parameters);
+  }
+}
@@ -0,0 +1,59 @@
+package com.akm.http;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Provides test cases for {@link QueryEncoder}.
+ *
+ * @author Amir
+ * @since 1.1
+ */
+public class QueryEncoderTest {
+
+  @Test
+  public final void testEncode() {
+    assertAll("encode",
+        () -> assertEquals("", QueryEncoder.encode("")),
+        () -> assertEquals("aZ09-._~", QueryEncoder.encode("aZ09-._~")),
+        () -> assertEquals("a%20b%2B%26%3D%2A%2F", QueryEncoder.encode("a b+&=*/")),
+        () -> assertEquals("%C3%A9%E2%82%AC", QueryEncoder.encode("é€")),
+        () -> assertEquals("%F0%9F%98%80", QueryEncoder.encode("😀")),
+        () -> assertEquals("%3Fx", QueryEncoder.encode("\ud83dx")));
+  }
+
+  @Test
+  public final void testEncodeForm() {
+    final Map<String, String> parameters = new LinkedHashMap<>();
+    parameters.put("name", "Jörg Smith");
+    parameters.put("a&b", "1+1=2");
+    parameters.put("flag", null);
+
+    assertAll("form",
+        () -> assertEquals("name=J%C3%B6rg+Smith&a%26b=1%2B1%3D2&flag",
+            new String(QueryEncoder.encodeForm(parameters), StandardCharsets.US_ASCII)),
+        () -> assertEquals(0, QueryEncoder.encodeForm(Collections.emptyMap()).length));
+  }
+
+  @Test
+  public final void testAppendQuery() {
+    final Map<String, String> parameters = new LinkedHashMap<>();
+    parameters.put("q", "a b");
+    parameters.put("page", "2");
+
+    assertAll("query",
+        () -> assertEquals("/items?q=a%20b&page=2", QueryEncoder.appendQuery("/items", parameters)),
+        () -> assertEquals("/items?format=json&q=a%20b&page=2",
+            QueryEncoder.appendQuery("/items?format=json", parameters)),
+        () -> assertEquals("/items?format=json&x&q=a%20b&page=2",
+            QueryEncoder.appendQuery("/items?page=1&format=json&q=old&x", parameters)),
+        () -> assertEquals("/items?q=a%20b&page=2",
+            QueryEncoder.appendQuery("/items?%71=old&", parameters)));
+  }
+}
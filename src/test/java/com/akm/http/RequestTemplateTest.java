@@ -0,0 +1,102 @@
+package com.akm.http;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.akm.http.balancer.EndpointGroup;
+import com.akm.http.exception.HttpServiceException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Provides test cases for precompiled request templates.
+ *
+ * @author Amir
+ * @since 1.1
+ */
+public class RequestTemplateTest {
+
+  @Test
+  public final void testTemplate() throws IOException, HttpServiceException {
+    try (TestServer server = echo(); HttpService http = new HttpService()) {
+      final RequestTemplate template = RequestTemplate.builder("get", server.url("/items?v=1"))
+          .header("X-Token", "secret")
+          .parameter("format", "json")
+          .slot("q")
+          .slot("page")
+          .build();
+
+      final HttpResponse first = http.execute(template, "a b&c", "2");
+      final HttpResponse second = http.execute(template, "é", null);
+      assertAll("template",
+          () -> assertEquals(List.of("q", "page"), template.getSlots()),
+          () -> assertEquals(server.url("/items?v=1&format=json"), template.getUrl()),
+          () -> assertEquals("GET /items?v=1&format=json&q=a%20b%26c&page=2 secret",
+              first.getData()),
+          () -> assertEquals("GET /items?v=1&format=json&q=%C3%A9 secret", second.getData()),
+          () -> assertThrows(IllegalArgumentException.class, () -> http.execute(template, "x")));
+    }
+  }
+
+  @Test
+  public final void testFragment() throws IOException, HttpServiceException {
+    try (TestServer server = echo(); HttpService http = new HttpService()) {
+      final RequestTemplate template = RequestTemplate.builder("GET",
+          server.url("/items?v=1#results"))
+          .header("X-Token", "secret")
+          .parameter("format", "json")
+          .slot("q")
+          .build();
+
+      assertAll("fragment",
+          () -> assertEquals(server.url("/items?v=1&format=json"), template.getUrl()),
+          () -> assertEquals("GET /items?v=1&format=json&q=x secret",
+              http.execute(template, "x").getData()));
+    }
+  }
+
+  @Test
+  public final void testBody() throws IOException, HttpServiceException {
+    try (TestServer server = echo(); HttpService http = new HttpService()) {
+      final RequestTemplate template = RequestTemplate.builder("POST", server.url("/items"))
+          .header("X-Token", "secret")
+          .slot("id")
+          .build();
+
+      final HttpResponse resp = http.execute(template, RequestBody.of("{}"), "7");
+      assertEquals("POST /items?id=7 secret {}", resp.getData());
+    }
+  }
+
+  @Test
+  public final void testEndpointGroup() throws IOException, HttpServiceException {
+    try (TestServer server = echo(); HttpService http = new HttpService()) {
+      http.register(new EndpointGroup("svc", List.of(server.url())));
+      final RequestTemplate template = RequestTemplate.builder("GET", "http://svc/items")
+          .slot("id")
+          .build();
+
+      assertEquals("GET /items?id=1 null", http.execute(template, "1").getData());
+    }
+  }
+
+  /**
+   * Returns a server answering with the request line, token header and body it received.
+   */
+  private static TestServer echo() throws IOException {
+    return new TestServer().handle("/", exchange -> {
+      final String body;
+      try (InputStream in = exchange.getRequestBody()) {
+        body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+      }
+      TestServer.respond(exchange, 200, String.format("%s %s %s%s",
+          exchange.getRequestMethod(), exchange.getRequestURI().getRawPath()
+              + "?" + exchange.getRequestURI().getRawQuery(),
+          exchange.getRequestHeaders().getFirst("X-Token"), body.isEmpty() ? "" : " " + body));
+    });
+  }
+}
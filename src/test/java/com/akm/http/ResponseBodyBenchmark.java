@@ -0,0 +1,89 @@
+package com.akm.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of buffering a response body of unknown length.
+ * <p>
+ * Run with the GC profiler (see the README) to compare bytes allocated per body, where
+ * <code>baseline</code> reproduces the previous behaviour of reading into a growing
+ * <code>ByteArrayOutputStream</code>, and <code>transferBuffer</code> compares allocating a direct
+ * download buffer with taking one from the pool.
+ *
+ * @author Amir
+ * @since 1.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseBodyBenchmark {
+
+  private final HttpServiceConfig config = new HttpServiceConfig();
+
+  @Benchmark
+  public byte[] baseline(final Body body) throws IOException {
+    final InputStream in = new ByteArrayInputStream(body.bytes);
+    final ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+    final byte[] buffer = new byte[8192];
+    int read;
+
+    while ((read = in.read(buffer)) != -1) {
+      out.write(buffer, 0, read);
+    }
+
+    return out.toByteArray();
+  }
+
+  @Benchmark
+  public ResponseBody pooled(final Body body) throws IOException {
+    return ResponseBody.read(new ByteArrayInputStream(body.bytes), -1, config);
+  }
+
+  @Benchmark
+  public ByteBuffer transferBufferAllocated() {
+    return ByteBuffer.allocateDirect(BufferPool.MAX_SIZE);
+  }
+
+  @Benchmark
+  public ByteBuffer transferBufferPooled() {
+    final ByteBuffer buffer = BufferPool.DIRECT.acquire(BufferPool.MAX_SIZE);
+    BufferPool.DIRECT.release(buffer);
+    return buffer;
+  }
+
+  /**
+   * The body to read.
+   */
+  @State(Scope.Benchmark)
+  public static class Body {
+
+    @Param({"4096", "65536", "1048576"})
+    private int size;
+
+    private byte[] bytes;
+
+    @Setup
+    public void setup() {
+      bytes = new byte[size];
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package com.akm.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local HTTP server for unit tests that must not depend on external hosts.
+ *
+ * @author Amir
+ * @since 1.1
+ */
+public final class TestServer implements AutoCloseable {
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+
+  /**
+   * Starts a new server bound to an ephemeral port on the loopback address.
+   *
+   * @throws IOException if the server could not be started
+   */
+  public TestServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    executor = Executors.newCachedThreadPool();
+    server.setExecutor(executor);
+    server.start();
+  }
+
+  /**
+   * Registers a handler for the given path.
+   *
+   * @param path    the path
+   * @param handler the handler
+   *
+   * @return this server
+   */
+  public TestServer handle(final String path, final HttpHandler handler) {
+    server.createContext(path, handler);
+    return this;
+  }
+
+  /**
+   * Returns the base url of the server, without a trailing slash.
+   *
+   * @return the base url
+   */
+  public String url() {
+    return String.format("http://%s:%d", server.getAddress().getHostString(),
+        server.getAddress().getPort());
+  }
+
+  /**
+   * Returns the url of the given path on the server.
+   *
+   * @param path the path, starting with a slash
+   *
+   * @return the url
+   */
+  public String url(final String path) {
+    return url() + path;
+  }
+
+  /**
+   * Sends the given string as a complete response.
+   *
+   * @param exchange   the exchange
+   * @param statusCode the status code
+   * @param body       the response body
+   *
+   * @throws IOException if the response could not be written
+   */
+  public static void respond(final HttpExchange exchange, final int statusCode,
+      final String body) throws IOException {
+    respond(exchange, statusCode, body.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Sends the given bytes as a complete response.
+   *
+   * @param exchange   the exchange
+   * @param statusCode the status code
+   * @param bytes      the response body
+   *
+   * @throws IOException if the response could not be written
+   */
+  public static void respond(final HttpExchange exchange, final int statusCode,
+      final byte[] bytes) throws IOException {
+    exchange.sendResponseHeaders(statusCode, bytes.length == 0 ? -1 : bytes.length);
+
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+}
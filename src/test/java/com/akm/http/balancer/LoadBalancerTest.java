@@ -0,0 +1,297 @@
+package com.akm.http.balancer;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.akm.http.HttpResponse;
+import com.akm.http.HttpService;
+import com.akm.http.TestServer;
+import com.akm.http.exception.HttpServiceException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Provides test cases for client-side load balancing.
+ *
+ * @author Amir
+ * @since 1.1
+ */
+public class LoadBalancerTest {
+
+  private static final List<String> URLS = List.of("http://a:1/api", "http://b:2/api/",
+      "http://c:3");
+
+  @Test
+  public final void testRoundRobin() {
+    final EndpointGroup group = new EndpointGroup("svc", URLS);
+    final List<Endpoint> endpoints = group.getEndpoints();
+    assertAll("round robin",
+        () -> assertSame(endpoints.get(0), group.select()),
+        () -> assertSame(endpoints.get(1), group.select()),
+        () -> assertSame(endpoints.get(2), group.select()),
+        () -> assertSame(endpoints.get(0), group.select()));
+  }
+
+  @Test
+  public final void testLeastOutstandingRequests() {
+    final EndpointGroup group = new EndpointGroup("svc", URLS,
+        new LeastOutstandingRequestsLoadBalancer());
+    final List<Endpoint> endpoints = group.getEndpoints();
+    endpoints.get(0).onRequestStart();
+    endpoints.get(0).onRequestStart();
+    endpoints.get(2).onRequestStart();
+
+    for (int i = 0; i < 10; i++) {
+      assertSame(endpoints.get(1), group.select(), "least loaded endpoint not chosen");
+    }
+  }
+
+  @Test
+  public final void testPowerOfTwoChoices() {
+    final EndpointGroup group = new EndpointGroup("svc", URLS.subList(0, 2),
+        new PowerOfTwoChoicesLoadBalancer());
+    final List<Endpoint> endpoints = group.getEndpoints();
+    endpoints.get(0).onRequestStart();
+    endpoints.get(0).onRequestComplete(TimeUnit.MILLISECONDS.toNanos(200));
+    endpoints.get(1).onRequestStart();
+    endpoints.get(1).onRequestComplete(TimeUnit.MILLISECONDS.toNanos(5));
+
+    for (int i = 0; i < 10; i++) {
+      assertSame(endpoints.get(1), group.select(), "faster endpoint not chosen");
+    }
+  }
+
+  @Test
+  public final void testResolve() {
+    final EndpointGroup group = new EndpointGroup("Svc", URLS);
+    final List<Endpoint> endpoints = group.getEndpoints();
+    final URI uri = URI.create("http://svc/items?id=1&id=2");
+    assertAll("resolve",
+        () -> assertEquals("svc", group.getName()),
+        () -> assertEquals("http://a:1/api/items?id=1&id=2", group.resolve(endpoints.get(0), uri)),
+        () -> assertEquals("http://b:2/api/items?id=1&id=2", group.resolve(endpoints.get(1), uri)),
+        () -> assertEquals("http://c:3", group.resolve(endpoints.get(2), URI.create("http://svc"))));
+  }
+
+  @Test
+  public final void testConsecutiveErrorEjection() throws InterruptedException {
+    final EndpointGroup group = new EndpointGroup("svc", URLS);
+    group.setMaxConsecutiveErrors(3);
+    group.setEjectionTime(Duration.ofMillis(50));
+    final Endpoint endpoint = group.getEndpoints().get(0);
+
+    group.onResponse(endpoint, 503, 1);
+    group.onResponse(endpoint, 503, 1);
+    assertFalse(endpoint.isEjected(), "endpoint ejected too early");
+    group.onResponse(endpoint, 502, 1);
+    assertAll("ejected",
+        () -> assertTrue(endpoint.isEjected(), "endpoint not ejected"),
+        () -> assertEquals(1, endpoint.getEjectionCount()),
+        () -> assertEquals(1, group.getEjectedCount()));
+
+    for (int i = 0; i < 10; i++) {
+      assertNotSame(endpoint, group.select(), "ejected endpoint chosen");
+    }
+
+    Thread.sleep(100);
+    group.select();
+    assertAll("re-admitted",
+        () -> assertFalse(endpoint.isEjected(), "endpoint not re-admitted"),
+        () -> assertEquals(1, endpoint.getReadmissionCount()),
+        () -> assertEquals(0, endpoint.getConsecutiveErrors()));
+  }
+
+  @Test
+  public final void testLatencyOutlierEjection() {
+    final EndpointGroup group = new EndpointGroup("svc", URLS);
+    final List<Endpoint> endpoints = group.getEndpoints();
+    group.onResponse(endpoints.get(1), 200, TimeUnit.MILLISECONDS.toNanos(10));
+    group.onResponse(endpoints.get(2), 200, TimeUnit.MILLISECONDS.toNanos(12));
+    group.onResponse(endpoints.get(0), 200, TimeUnit.MILLISECONDS.toNanos(500));
+    assertTrue(endpoints.get(0).isEjected(), "slow endpoint not ejected");
+  }
+
+  @Test
+  public final void testLastEndpointNotEjected() {
+    final EndpointGroup group = new EndpointGroup("svc", URLS.subList(0, 2));
+    group.onHealthCheck(group.getEndpoints().get(0), false);
+    group.onHealthCheck(group.getEndpoints().get(1), false);
+    assertAll("last endpoint",
+        () -> assertTrue(group.getEndpoints().get(0).isEjected()),
+        () -> assertFalse(group.getEndpoints().get(1).isEjected()));
+  }
+
+  @Test
+  public final void testConcurrentEjection() throws InterruptedException {
+    for (int run = 0; run < 50; run++) {
+      final EndpointGroup group = new EndpointGroup("svc", URLS);
+      group.setMaxConsecutiveErrors(1);
+      final CountDownLatch start = new CountDownLatch(1);
+      final List<Thread> threads = new ArrayList<>();
+
+      for (final Endpoint endpoint : group.getEndpoints()) {
+        for (int i = 0; i < 4; i++) {
+          final Thread thread = new Thread(() -> {
+            try {
+              start.await();
+            } catch (final InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            group.onResponse(endpoint, 503, 0);
+          });
+          thread.start();
+          threads.add(thread);
+        }
+      }
+
+      start.countDown();
+      for (final Thread thread : threads) {
+        thread.join();
+      }
+
+      assertEquals(URLS.size() - 1, group.getEjectedCount(), "every endpoint ejected");
+    }
+  }
+
+  @Test
+  public final void testHealthCheckReadmission() {
+    final EndpointGroup group = new EndpointGroup("svc", URLS);
+    group.setEjectionTime(Duration.ofHours(1));
+    final Endpoint endpoint = group.getEndpoints().get(0);
+
+    group.onHealthCheck(endpoint, false);
+    assertTrue(endpoint.isEjected(), "endpoint not ejected");
+
+    group.onHealthCheck(endpoint, true);
+    group.onHealthCheck(endpoint, true);
+    assertAll("re-admitted",
+        () -> assertFalse(endpoint.isEjected()),
+        () -> assertEquals(1, endpoint.getEjectionCount()),
+        () -> assertEquals(1, endpoint.getReadmissionCount()));
+  }
+
+  @Test
+  public final void testHealthCheck() throws IOException, InterruptedException {
+    try (TestServer healthy = new TestServer(); TestServer unhealthy = new TestServer();
+        HttpService http = new HttpService()) {
+      healthy.handle("/health", exchange -> TestServer.respond(exchange, 200, ""));
+      unhealthy.handle("/health", exchange -> TestServer.respond(exchange, 503, ""));
+
+      final EndpointGroup group = new EndpointGroup("replicas",
+          List.of(healthy.url(), unhealthy.url()));
+      group.setHealthCheckPath("/health");
+      group.setHealthCheckInterval(Duration.ofMillis(20));
+      http.register(group);
+
+      final Endpoint endpoint = group.getEndpoints().get(1);
+      for (int i = 0; i < 100 && !endpoint.isEjected(); i++) {
+        Thread.sleep(20);
+      }
+
+      assertAll("health check",
+          () -> assertTrue(endpoint.isEjected(), "unhealthy endpoint not ejected"),
+          () -> assertFalse(group.getEndpoints().get(0).isEjected(), "healthy endpoint ejected"));
+    }
+  }
+
+  @Test
+  public final void testHealthCheckPath() throws IOException, InterruptedException {
+    final List<String> paths = new CopyOnWriteArrayList<>();
+
+    try (TestServer server = new TestServer(); HttpService http = new HttpService()) {
+      server.handle("/", exchange -> {
+        paths.add(exchange.getRequestURI().getRawPath());
+        TestServer.respond(exchange, "/health".equals(exchange.getRequestURI().getRawPath())
+            ? 200 : 404, "");
+      });
+
+      final List<EndpointGroup> groups = new ArrayList<>();
+      for (final String path : new String[]{"health", "/health"}) {
+        final EndpointGroup group = new EndpointGroup("svc" + groups.size(),
+            List.of(server.url() + "/", server.url()));
+        group.setHealthCheckPath(path);
+        group.setHealthCheckInterval(Duration.ofMillis(20));
+        http.register(group);
+        groups.add(group);
+      }
+
+      for (int i = 0; i < 100 && paths.size() < 8; i++) {
+        Thread.sleep(20);
+      }
+
+      assertAll("health check path",
+          () -> assertTrue(paths.size() >= 8, "not probed"),
+          () -> assertTrue(paths.stream().allMatch("/health"::equals), paths.toString()),
+          () -> assertEquals(0, groups.get(0).getEjectedCount()),
+          () -> assertEquals(0, groups.get(1).getEjectedCount()));
+    }
+  }
+
+  @Test
+  public final void testHealthCheckTimeout() throws IOException, InterruptedException {
+    // accepts connections, but never answers
+    try (ServerSocket hung = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        TestServer healthy = new TestServer(); HttpService http = new HttpService()) {
+      healthy.handle("/health", exchange -> TestServer.respond(exchange, 200, ""));
+
+      final EndpointGroup group = new EndpointGroup("replicas", List.of(
+          "http://127.0.0.1:" + hung.getLocalPort(), healthy.url()));
+      group.setHealthCheckPath("/health");
+      group.setHealthCheckInterval(Duration.ofMillis(100));
+      group.setEjectionTime(Duration.ofHours(1));
+
+      final Endpoint endpoint = group.getEndpoints().get(1);
+      group.onHealthCheck(endpoint, false);
+      assertTrue(endpoint.isEjected(), "endpoint not ejected");
+      http.register(group);
+
+      for (int i = 0; i < 100 && (endpoint.isEjected()
+          || !group.getEndpoints().get(0).isEjected()); i++) {
+        Thread.sleep(50);
+      }
+
+      assertAll("timeout",
+          () -> assertFalse(endpoint.isEjected(), "healthy endpoint not re-admitted"),
+          () -> assertTrue(group.getEndpoints().get(0).isEjected(),
+              "hung endpoint not ejected"));
+    }
+  }
+
+  @Test
+  public final void testHttpServiceBalancesRequests()
+      throws IOException, HttpServiceException {
+    try (TestServer first = new TestServer(); TestServer second = new TestServer()) {
+      first.handle("/", exchange -> TestServer.respond(exchange, 200, "first"));
+      second.handle("/", exchange -> TestServer.respond(exchange, 200, "second"));
+
+      final HttpService http = new HttpService();
+      final EndpointGroup group = new EndpointGroup("replicas",
+          List.of(first.url(), second.url()));
+      http.register(group);
+      final Map<String, String> empty = new HashMap<>();
+
+      final HttpResponse a = http.get("http://replicas/ping", empty, empty);
+      final HttpResponse b = http.get("http://replicas/ping", empty, empty);
+      assertAll("balanced requests",
+          () -> assertEquals("first", a.getData()),
+          () -> assertEquals("second", b.getData()),
+          () -> assertEquals(0, group.getEndpoints().get(0).getOutstandingRequests()),
+          () -> assertEquals(0, group.getEndpoints().get(1).getOutstandingRequests()));
+    }
+  }
+}
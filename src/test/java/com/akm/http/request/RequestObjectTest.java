@@ -2,14 +2,23 @@ package com.akm.http.request;
 
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.akm.http.TestUtils;
 import com.akm.http.exception.HttpRequestTranslationException;
+import java.lang.reflect.Field;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -93,6 +102,140 @@ public class RequestObjectTest {
     assertThrows(HttpRequestTranslationException.class, () -> tro.translate());
   }
 
+  @Test
+  public final void testTranslateCollections() {
+    final BatchType batch = new BatchType(List.of(3, 1, 2), new TestEnum[] {TestEnum.UP, null},
+        new String[] {"a", " "});
+    final RequestParameters parameters = (RequestParameters) batch.translate();
+    assertAll("translate collections",
+        () -> assertEquals(List.of("id", "direction", "tag"), List.copyOf(parameters.keySet())),
+        () -> assertEquals(List.of("3", "1", "2"), parameters.getAll("id")),
+        () -> assertEquals(List.of("up"), parameters.getAll("direction")),
+        () -> assertEquals(List.of("a"), parameters.getAll("tag")),
+        () -> assertThrows(HttpRequestTranslationException.class,
+            () -> new BatchType(List.of(), null, null).translate()));
+  }
+
+  @Test
+  public final void testTranslateOverridden() {
+    final RequestParameters parameters =
+        (RequestParameters) new RenamedType(List.of("a", ""), " ").translate();
+    assertAll("translate overridden",
+        () -> assertEquals(List.of("A", ""), parameters.getAll("TAG")),
+        () -> assertEquals(List.of(" "), parameters.getAll("NOTE")),
+        () -> assertSame(RequestObjectMetadata.of(RenamedType.class),
+            RequestObjectMetadata.of(RenamedType.class)),
+        () -> assertFalse(RequestObjectMetadata.of(RenamedType.class).isDefaultMapping()),
+        () -> assertTrue(RequestObjectMetadata.of(BatchType.class).isDefaultMapping()));
+  }
+
+  @Test
+  public final void testSharedAdapters() {
+    final int created = CountingAdapter.CREATED.get();
+    final CountedType first = new CountedType("a", "b");
+    first.translate();
+    new CountedType("c", "d").translate();
+    assertAll("shared adapters",
+        () -> assertEquals(List.of("A"),
+            ((RequestParameters) first.translate()).getAll("first")),
+        () -> assertEquals(1, CountingAdapter.CREATED.get() - created),
+        () -> assertSame(RequestObjectMetadata.adapter(CountingAdapter.class),
+            RequestObjectMetadata.adapter(CountingAdapter.class)),
+        () -> assertSame(DummyRequestParameterAdapter.INSTANCE,
+            RequestObjectMetadata.adapter(DummyRequestParameterAdapter.class)));
+  }
+
+  public static final class CountedType implements RequestObject {
+
+    @RequestParameter(value = "first", adapter = CountingAdapter.class)
+    public final String first;
+
+    @RequestParameter(value = "second", adapter = CountingAdapter.class)
+    public final String second;
+
+    public CountedType(final String first, final String second) {
+      this.first = first;
+      this.second = second;
+    }
+  }
+
+  public static final class CountingAdapter extends RequestParameterAdapter<String> {
+
+    static final AtomicInteger CREATED = new AtomicInteger();
+
+    public CountingAdapter() {
+      CREATED.incrementAndGet();
+    }
+
+    @Override
+    public String convert(final String t) throws HttpRequestTranslationException {
+      return t.toUpperCase(Locale.ROOT);
+    }
+  }
+
+  public static final class RenamedType implements RequestObject {
+
+    @RequestParameter("tag")
+    public final List<String> tags;
+
+    @RequestParameter("note")
+    public final String note;
+
+    public RenamedType(final List<String> tags, final String note) {
+      this.tags = tags;
+      this.note = note;
+    }
+
+    @Override
+    public Predicate<Map.Entry<String, String>> postFilterParameters() {
+      return entry -> entry.getValue() != null;
+    }
+
+    @Override
+    public Function<Field, String> getParameterKeyMapper() {
+      return field -> field.getAnnotation(RequestParameter.class).value()
+          .toUpperCase(Locale.ROOT);
+    }
+
+    @Override
+    public Function<Field, String> getParameterValueMapper() {
+      return field -> note;
+    }
+
+    @Override
+    public Function<Field, List<String>> getParameterValuesMapper() {
+      final Function<Field, List<String>> values = RequestObject.super.getParameterValuesMapper();
+      return field -> values.apply(field).stream().map(v -> v.toUpperCase(Locale.ROOT))
+          .collect(Collectors.toList());
+    }
+  }
+
+  public static final class BatchType implements RequestObject {
+
+    @RequestParameter(value = "id", required = true)
+    public final List<Integer> ids;
+
+    @RequestParameter(value = "direction", adapter = LowerCaseAdapter.class)
+    public final TestEnum[] directions;
+
+    @RequestParameter("tag")
+    public final String[] tags;
+
+    public BatchType(final List<Integer> ids, final TestEnum[] directions, final String[] tags) {
+      this.ids = ids;
+      this.directions = directions;
+      this.tags = tags;
+    }
+  }
+
+  public static final class LowerCaseAdapter extends RequestParameterAdapter<Enum<?>> {
+
+    @Override
+    public String convert(final Enum<?> t) throws HttpRequestTranslationException {
+      return t.name().toLowerCase(Locale.ROOT);
+    }
+  }
+
   public static final class TestRequestObject implements RequestObject {
 
     @RequestParameter("api_user_key")
@@ -0,0 +1,86 @@
+package com.akm.http.request;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.akm.http.HttpService;
+import com.akm.http.TestServer;
+import com.akm.http.exception.HttpServiceException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Provides test cases for {@link RequestParameters}.
+ *
+ * @author Amir
+ * @since 1.1
+ */
+public class RequestParametersTest {
+
+  @Test
+  public final void testParameters() {
+    final RequestParameters parameters = new RequestParameters()
+        .add("id", "1")
+        .add("fields", "name")
+        .addAll("id", List.of("2", "3"))
+        .add("flag", null);
+
+    assertAll("parameters",
+        () -> assertEquals(List.of("id", "fields", "flag"), List.copyOf(parameters.keySet())),
+        () -> assertEquals(List.of("1", "2", "3"), parameters.getAll("id")),
+        () -> assertEquals("1", parameters.get("id")),
+        () -> assertEquals(3, parameters.size()),
+        () -> assertEquals(5, parameters.valueCount()),
+        () -> assertTrue(parameters.getAll("missing").isEmpty()),
+        () -> assertEquals("{id=[1, 2, 3], fields=[name], flag=[null]}", parameters.toString()));
+
+    final RequestParameters copy = new RequestParameters(parameters).add("id", "4");
+    assertAll("copy",
+        () -> assertEquals(List.of("1", "2", "3", "4"), copy.getAll("id")),
+        () -> assertEquals(3, parameters.getAll("id").size()),
+        () -> assertEquals(List.of("x"),
+            new RequestParameters(Map.of("a", "x")).getAll("a")));
+
+    assertEquals("1", parameters.put("id", "9"));
+    parameters.remove("fields");
+    assertAll("replace",
+        () -> assertEquals(List.of("9"), parameters.getAll("id")),
+        () -> assertFalse(parameters.containsKey("fields")),
+        () -> assertEquals(2, parameters.valueCount()));
+  }
+
+  @Test
+  public final void testSend() throws IOException, HttpServiceException {
+    try (TestServer server = echo(); HttpService http = new HttpService()) {
+      final RequestParameters parameters = new RequestParameters()
+          .addAll("id", List.of("1", "2", "3"))
+          .add("q", "a b");
+
+      assertAll("send",
+          () -> assertEquals("GET v=0&id=1&id=2&id=3&q=a%20b",
+              http.get(server.url("/items?v=0&id=7"), null, parameters).getData()),
+          () -> assertEquals("POST id=1&id=2&id=3&q=a%20b id=1&id=2&id=3&q=a+b",
+              http.post(server.url("/items"), null, parameters, null).getData()));
+    }
+  }
+
+  /**
+   * Returns a server answering with the request method, query and body it received.
+   */
+  private static TestServer echo() throws IOException {
+    return new TestServer().handle("/", exchange -> {
+      final String body;
+      try (InputStream in = exchange.getRequestBody()) {
+        body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+      }
+      TestServer.respond(exchange, 200, String.format("%s %s%s", exchange.getRequestMethod(),
+          exchange.getRequestURI().getRawQuery(), body.isEmpty() ? "" : " " + body));
+    });
+  }
+}
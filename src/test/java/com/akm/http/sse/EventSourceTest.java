@@ -0,0 +1,179 @@
+package com.akm.http.sse;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.akm.http.HttpService;
+import com.akm.http.TestServer;
+import com.akm.http.exception.HttpServiceException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Provides test cases for the server-sent events client.
+ *
+ * @author Amir
+ * @since 1.1
+ */
+public class EventSourceTest {
+
+  @Test
+  public final void testParse() throws IOException {
+    final AtomicLong retry = new AtomicLong();
+    final EventStreamParser parser = new EventStreamParser(null, retry::set);
+    final List<ServerSentEvent> events = new ArrayList<>();
+
+    parser.parse(stream("\uFEFF: comment\r\nretry: 250\r\nid: 1\r\ndata: a\r\ndata:b\r\n\r\n"
+        + "event: update\rdata: c\r\rdata\n\nid: 2\ndata: lost"), events::add);
+    assertAll("events",
+        () -> assertEquals(3, events.size()),
+        () -> assertEquals("1", events.get(0).getId()),
+        () -> assertEquals("message", events.get(0).getEvent()),
+        () -> assertEquals("a\nb", events.get(0).getData()),
+        () -> assertEquals("update", events.get(1).getEvent()),
+        () -> assertEquals("c", events.get(1).getData()),
+        () -> assertEquals("1", events.get(1).getId()),
+        () -> assertEquals("", events.get(2).getData()),
+        () -> assertEquals("2", parser.getLastEventId()),
+        () -> assertEquals(250, retry.get()));
+  }
+
+  @Test
+  public final void testReconnect() throws IOException, InterruptedException {
+    final AtomicInteger connections = new AtomicInteger();
+    final List<String> lastEventIds = new CopyOnWriteArrayList<>();
+
+    try (TestServer server = new TestServer()) {
+      server.handle("/events", exchange -> {
+        lastEventIds.add(String.valueOf(exchange.getRequestHeaders().getFirst("Last-Event-ID")));
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+
+        if (connections.incrementAndGet() == 1) {
+          exchange.sendResponseHeaders(200, 0);
+          try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes("retry: 50\n\nid: 1\ndata: one\n\nid: 2\nevent: two\ndata: two\n\n"));
+          }
+        } else {
+          TestServer.respond(exchange, 200, "id: 3\ndata: three\n\n");
+        }
+      });
+
+      final List<ServerSentEvent> events = new CopyOnWriteArrayList<>();
+      final CountDownLatch received = new CountDownLatch(3);
+
+      try (EventSource source = new EventSource(new HttpService(), server.url("/events"), null)) {
+        source.open(event -> {
+          events.add(event);
+          received.countDown();
+        });
+
+        assertTrue(received.await(10, TimeUnit.SECONDS), "events not received");
+        assertAll("reconnected",
+            () -> assertEquals("one", events.get(0).getData()),
+            () -> assertEquals("two", events.get(1).getEvent()),
+            () -> assertEquals("three", events.get(2).getData()),
+            () -> assertEquals("null", lastEventIds.get(0)),
+            () -> assertEquals("2", lastEventIds.get(1)),
+            () -> assertEquals(Duration.ofMillis(50), source.getRetry()),
+            () -> assertEquals("3", source.getLastEventId()));
+      }
+    }
+  }
+
+  @Test
+  public final void testPublisher() throws IOException, InterruptedException, ExecutionException {
+    try (TestServer server = new TestServer()) {
+      server.handle("/events", exchange -> {
+        if (exchange.getRequestHeaders().containsKey("Last-Event-ID")) {
+          TestServer.respond(exchange, 204, "");
+        } else {
+          exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+          TestServer.respond(exchange, 200, "id: a\ndata: 1\n\ndata: 2\n\n");
+        }
+      });
+
+      final EventSource source = new EventSource(new HttpService(), server.url("/events"), null);
+      source.setRetry(Duration.ZERO);
+      final List<String> data = new CopyOnWriteArrayList<>();
+      final CompletableFuture<Void> completed = new CompletableFuture<>();
+
+      source.open().subscribe(new Flow.Subscriber<>() {
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+          subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(final ServerSentEvent item) {
+          data.add(item.getData());
+        }
+
+        @Override
+        public void onError(final Throwable t) {
+          completed.completeExceptionally(t);
+        }
+
+        @Override
+        public void onComplete() {
+          completed.complete(null);
+        }
+      });
+
+      assertNull(completed.get());
+      assertAll("published",
+          () -> assertEquals(List.of("1", "2"), data),
+          () -> assertTrue(source.isClosed(), "source open"));
+    }
+  }
+
+  @Test
+  public final void testWrongContentType() throws IOException, InterruptedException {
+    try (TestServer server = new TestServer()) {
+      server.handle("/json", exchange -> TestServer.respond(exchange, 200, "{}"));
+
+      final CompletableFuture<Throwable> closed = new CompletableFuture<>();
+      try (EventSource source = new EventSource(new HttpService(), server.url("/json"), null)) {
+        source.open(new EventHandler() {
+          @Override
+          public void onEvent(final ServerSentEvent event) {
+          }
+
+          @Override
+          public void onClosed(final Throwable cause) {
+            closed.complete(cause);
+          }
+        });
+
+        assertInstanceOf(HttpServiceException.class, closed.join());
+        assertThrows(IllegalStateException.class, () -> source.open(event -> {
+        }));
+      }
+    }
+  }
+
+  private static byte[] bytes(final String s) {
+    return s.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static ByteArrayInputStream stream(final String s) {
+    return new ByteArrayInputStream(bytes(s));
+  }
+}